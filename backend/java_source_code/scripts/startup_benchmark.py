@@ -0,0 +1,71 @@
+'''
+启动耗时测试：多次启动 app jar，统计从启动进程到第一个请求返回响应的时间
+
+运行脚本命令：
+python startup_benchmark.py --jar target/app-1.0.jar --runs 5
+python startup_benchmark.py --jar target/app-1.0.jar --runs 5 --java-opts="-XX:SharedArchiveFile=app.jsa" --app-args="--spring.profiles.active=fast"
+'''
+
+import argparse
+import os
+import shlex
+import statistics
+import subprocess
+import time
+import urllib.error
+import urllib.request
+
+
+# 启动一次，返回到首个请求得到响应的毫秒数
+def measure_once(jar, port, path, java_opts, app_args, timeout):
+    jar_path = os.path.abspath(jar)
+    cmd = ["java"] + shlex.split(java_opts) + ["-jar", jar_path, f"--server.port={port}"] + shlex.split(app_args)
+    url = f"http://127.0.0.1:{port}{path}"
+
+    start = time.perf_counter()
+    # 在 jar 所在目录启动，保证 CDS 归档记录的类路径一致
+    process = subprocess.Popen(cmd, cwd=os.path.dirname(jar_path),
+                               stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL)
+    try:
+        while time.perf_counter() - start < timeout:
+            if process.poll() is not None:
+                raise RuntimeError(f"进程提前退出，退出码: {process.returncode}")
+            try:
+                urllib.request.urlopen(url, timeout=1).read()
+                return (time.perf_counter() - start) * 1000
+            except urllib.error.HTTPError:
+                # 业务返回错误也说明请求已被处理
+                return (time.perf_counter() - start) * 1000
+            except (urllib.error.URLError, ConnectionError, OSError):
+                time.sleep(0.01)
+        raise RuntimeError(f"{timeout} 秒内未收到响应")
+    finally:
+        process.terminate()
+        try:
+            process.wait(timeout=10)
+        except subprocess.TimeoutExpired:
+            process.kill()
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Measure time from JVM launch to the first served request")
+    parser.add_argument('--jar', type=str, required=True, help="Path to the app jar")
+    parser.add_argument('--runs', type=int, default=5, help="Number of launches")
+    parser.add_argument('--port', type=int, default=7099, help="Port used for the benchmark instance")
+    parser.add_argument('--path', type=str, default="/imageResource?imagePath=examples/1.png", help="Request path")
+    parser.add_argument('--java-opts', type=str, default="", help="Extra JVM options, e.g. -XX:SharedArchiveFile=app.jsa")
+    parser.add_argument('--app-args', type=str, default="", help="Extra application arguments")
+    parser.add_argument('--timeout', type=float, default=60, help="Seconds to wait for each launch")
+    args = parser.parse_args()
+
+    results = []
+    for i in range(args.runs):
+        elapsed = measure_once(args.jar, args.port, args.path, args.java_opts, args.app_args, args.timeout)
+        results.append(elapsed)
+        print(f"第 {i + 1} 次: {elapsed:.0f} ms")
+
+    print(f"最小: {min(results):.0f} ms, 平均: {statistics.mean(results):.0f} ms, 中位数: {statistics.median(results):.0f} ms")
+
+
+if __name__ == "__main__":
+    main()
@@ -5,16 +5,58 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
 
 @SpringBootApplication(scanBasePackages = "com.fwwb.app")
 public class FwwbRunApplication {
     private static final Logger log = LoggerFactory.getLogger(FwwbRunApplication.class);
 
+    /**
+     * 生成 CDS 归档前请求一次的接口，覆盖控制器、组件、MVC 和 JSON 序列化的请求路径，且不会产生处理任务
+     */
+    private static final String[] WARM_UP_PATHS = {
+            "/catalog/loadMediaList?pageNo=1&pageSize=1",
+            "/videoResource/00000000/warmup/index.m3u8"
+    };
+
     public static void main(String[] args) {
-        SpringApplication.run(FwwbRunApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(FwwbRunApplication.class, args);
+
+        // 生成 CDS 归档时走一遍启动流程并处理几个请求，让请求路径上的类也进入归档，然后退出
+        if (context.getEnvironment().getProperty("app.startup.exitAfterReady", Boolean.class, false)) {
+            warmUp(context.getEnvironment().getProperty("local.server.port", Integer.class, 0));
+            System.exit(SpringApplication.exit(context));
+        }
+
+        Constants.initAssetFolders();
         log.info("项目启动成功");
         log.info("视频路径: {}", Constants.VIDEO_FOLDER);
         log.info("图像路径: {}", Constants.IMAGE_FOLDER);
         log.info("脚本路径: {}", Constants.SCRIPT_PATH);
     }
+
+    private static void warmUp(int port) {
+        for (String path : WARM_UP_PATHS) {
+            HttpURLConnection connection = null;
+            try {
+                connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+                try (InputStream in = connection.getInputStream()) {
+                    while (in.read() != -1) {
+                        // 读完响应
+                    }
+                }
+                log.info("预热请求 {} 返回 {}", path, connection.getResponseCode());
+            } catch (Exception e) {
+                log.warn("预热请求失败: {}", path, e);
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,345 @@
+package com.fwwb.app.component;
+
+import com.fwwb.app.entity.config.AppConfig;
+import com.fwwb.app.entity.constants.Constants;
+import com.fwwb.app.entity.enums.MediaTypeEnum;
+import com.fwwb.app.entity.po.MediaInfo;
+import com.fwwb.app.entity.vo.PaginationResultVO;
+import com.fwwb.app.exception.BusinessException;
+import com.fwwb.app.utils.StringTools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.sqlite.SQLiteConfig;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 媒体目录，基于嵌入式 SQLite
+ * <p>
+ * 上传和处理完成时写入，资源查询按主键直接命中，历史列表按类型/日期分页，不再需要遍历 assets/video。
+ * 每个节点使用自己本地磁盘上的数据库文件：SQLite 的文件锁在网络文件系统上不可靠，不能放在共享的 assets 目录中。
+ * 写入通过唯一的写连接串行执行；查询使用 WAL 下的只读连接，不等待写入。
+ * 已查到或写入过的记录缓存在内存中，播放时每个分片请求的目录定位不访问数据库。
+ */
+@Component
+public class CatalogComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogComponent.class);
+
+    private static final String SQL_CREATE_TABLE = "CREATE TABLE IF NOT EXISTS media_info (" +
+            "resource_name TEXT PRIMARY KEY, " +
+            "media_type INTEGER NOT NULL, " +
+            "resource_date TEXT NOT NULL, " +
+            "file_path TEXT NOT NULL, " +
+            "thumbnail TEXT, " +
+            "duration INTEGER, " +
+            "codec TEXT, " +
+            "source_name1 TEXT, " +
+            "source_name2 TEXT, " +
+            "create_time INTEGER NOT NULL)";
+
+    private static final String SQL_CREATE_INDEX_TYPE = "CREATE INDEX IF NOT EXISTS idx_media_type_time ON media_info (media_type, create_time)";
+
+    private static final String SQL_CREATE_INDEX_DATE = "CREATE INDEX IF NOT EXISTS idx_media_date_time ON media_info (resource_date, create_time)";
+
+    private static final String SQL_SAVE = "INSERT OR REPLACE INTO media_info " +
+            "(resource_name, media_type, resource_date, file_path, thumbnail, duration, codec, source_name1, source_name2, create_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_SELECT = "SELECT resource_name, media_type, resource_date, file_path, thumbnail, duration, codec, " +
+            "source_name1, source_name2, create_time FROM media_info";
+
+    private static final int READ_CONNECTION_COUNT = 4;
+
+    private static final int BUSY_TIMEOUT = 5000;
+
+    private interface ReadAction<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+    @Resource
+    private AppConfig appConfig;
+
+    /**
+     * 写连接，所有写入在该连接上串行执行
+     */
+    private Connection connection;
+
+    private final BlockingQueue<Connection> readConnections = new ArrayBlockingQueue<>(READ_CONNECTION_COUNT);
+
+    /**
+     * 资源名 -> 记录，只缓存存在的记录；目录只由本节点写入，save 时同步更新
+     */
+    private final Map<String, MediaInfo> cache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        File dbFile = new File(appConfig.getCatalogFile());
+        // 只配置文件名时 getParentFile 为 null，按绝对路径取所在目录
+        File dbFolder = dbFile.getAbsoluteFile().getParentFile();
+        if (!dbFolder.exists()) {
+            dbFolder.mkdirs();
+        }
+        String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        try {
+            connection = DriverManager.getConnection(url);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT);
+                // WAL 下读不阻塞写、写不阻塞读
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute(SQL_CREATE_TABLE);
+                statement.execute(SQL_CREATE_INDEX_TYPE);
+                statement.execute(SQL_CREATE_INDEX_DATE);
+            }
+            SQLiteConfig readConfig = new SQLiteConfig();
+            readConfig.setReadOnly(true);
+            readConfig.setBusyTimeout(BUSY_TIMEOUT);
+            for (int i = 0; i < READ_CONNECTION_COUNT; i++) {
+                readConnections.add(DriverManager.getConnection(url, readConfig.toProperties()));
+            }
+        } catch (SQLException e) {
+            throw new BusinessException("初始化媒体目录失败: " + dbFile.getAbsolutePath(), e);
+        }
+
+        if (count(null, null) == 0) {
+            Thread importThread = new Thread(this::importExisting, "catalog-import");
+            importThread.setDaemon(true);
+            importThread.start();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        List<Connection> connections = new ArrayList<>();
+        readConnections.drainTo(connections);
+        connections.add(connection);
+        for (Connection c : connections) {
+            try {
+                if (c != null) {
+                    c.close();
+                }
+            } catch (SQLException e) {
+                logger.error("关闭媒体目录失败", e);
+            }
+        }
+    }
+
+    public synchronized void save(MediaInfo mediaInfo) {
+        try (PreparedStatement ps = connection.prepareStatement(SQL_SAVE)) {
+            ps.setString(1, mediaInfo.getResourceName());
+            ps.setInt(2, mediaInfo.getMediaType());
+            ps.setString(3, mediaInfo.getResourceDate());
+            ps.setString(4, mediaInfo.getFilePath());
+            ps.setString(5, mediaInfo.getThumbnail());
+            setNullableInt(ps, 6, mediaInfo.getDuration());
+            ps.setString(7, mediaInfo.getCodec());
+            ps.setString(8, mediaInfo.getSourceName1());
+            ps.setString(9, mediaInfo.getSourceName2());
+            ps.setLong(10, mediaInfo.getCreateTime() == null ? System.currentTimeMillis() : mediaInfo.getCreateTime());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new BusinessException("写入媒体目录失败: " + mediaInfo.getResourceName(), e);
+        }
+        cache.put(mediaInfo.getResourceName(), mediaInfo);
+    }
+
+    public MediaInfo getByResourceName(String resourceName) {
+        return getByResourceName(resourceName, null);
+    }
+
+    /**
+     * 按资源名查询，cacheHit 不为 null 时在 cacheHit[0] 中记录是否命中内存缓存（未命中即查询了数据库）
+     */
+    public MediaInfo getByResourceName(String resourceName, boolean[] cacheHit) {
+        MediaInfo cached = cache.get(resourceName);
+        if (cacheHit != null) {
+            cacheHit[0] = cached != null;
+        }
+        if (cached != null) {
+            return cached;
+        }
+        MediaInfo mediaInfo = read(c -> {
+            try (PreparedStatement ps = c.prepareStatement(SQL_SELECT + " WHERE resource_name = ?")) {
+                ps.setString(1, resourceName);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? toMediaInfo(rs) : null;
+                }
+            }
+        });
+        if (mediaInfo != null) {
+            cache.putIfAbsent(resourceName, mediaInfo);
+        }
+        return mediaInfo;
+    }
+
+    /**
+     * 按类型、日期筛选，创建时间倒序分页
+     */
+    public PaginationResultVO<MediaInfo> findListByPage(Integer mediaType, String resourceDate, Integer pageNo, Integer pageSize) {
+        int totalCount = count(mediaType, resourceDate);
+        String sql = SQL_SELECT + buildWhere(mediaType, resourceDate) + " ORDER BY create_time DESC LIMIT ? OFFSET ?";
+        List<MediaInfo> list = read(c -> {
+            List<MediaInfo> result = new ArrayList<>();
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                int index = bindWhere(ps, mediaType, resourceDate);
+                ps.setInt(index++, pageSize);
+                ps.setInt(index, (pageNo - 1) * pageSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(toMediaInfo(rs));
+                    }
+                }
+            }
+            return result;
+        });
+        return new PaginationResultVO<>(totalCount, pageSize, pageNo, list);
+    }
+
+    private int count(Integer mediaType, String resourceDate) {
+        String sql = "SELECT COUNT(1) FROM media_info" + buildWhere(mediaType, resourceDate);
+        return read(c -> {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                bindWhere(ps, mediaType, resourceDate);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        });
+    }
+
+    /**
+     * 借用一个只读连接执行查询，所有只读连接都在使用时等待归还
+     */
+    private <T> T read(ReadAction<T> action) {
+        Connection c;
+        try {
+            c = readConnections.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("查询媒体目录被中断");
+        }
+        try {
+            return action.apply(c);
+        } catch (SQLException e) {
+            throw new BusinessException("查询媒体目录失败", e);
+        } finally {
+            readConnections.offer(c);
+        }
+    }
+
+    private String buildWhere(Integer mediaType, String resourceDate) {
+        List<String> conditions = new ArrayList<>();
+        if (mediaType != null) {
+            conditions.add("media_type = ?");
+        }
+        if (!StringTools.isEmpty(resourceDate)) {
+            conditions.add("resource_date = ?");
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private int bindWhere(PreparedStatement ps, Integer mediaType, String resourceDate) throws SQLException {
+        int index = 1;
+        if (mediaType != null) {
+            ps.setInt(index++, mediaType);
+        }
+        if (!StringTools.isEmpty(resourceDate)) {
+            ps.setString(index++, resourceDate);
+        }
+        return index;
+    }
+
+    private void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private MediaInfo toMediaInfo(ResultSet rs) throws SQLException {
+        MediaInfo mediaInfo = new MediaInfo();
+        mediaInfo.setResourceName(rs.getString("resource_name"));
+        mediaInfo.setMediaType(rs.getInt("media_type"));
+        mediaInfo.setResourceDate(rs.getString("resource_date"));
+        mediaInfo.setFilePath(rs.getString("file_path"));
+        mediaInfo.setThumbnail(rs.getString("thumbnail"));
+        int duration = rs.getInt("duration");
+        mediaInfo.setDuration(rs.wasNull() ? null : duration);
+        mediaInfo.setCodec(rs.getString("codec"));
+        mediaInfo.setSourceName1(rs.getString("source_name1"));
+        mediaInfo.setSourceName2(rs.getString("source_name2"));
+        mediaInfo.setCreateTime(rs.getLong("create_time"));
+        return mediaInfo;
+    }
+
+    /**
+     * 目录为空时导入已有文件，只在第一次启用目录时执行一次。
+     * 日期目录下的文件为上传视频；子目录名不是某个上传视频文件名的，为处理结果。
+     */
+    private void importExisting() {
+        File[] dateFolders = new File(Constants.VIDEO_FOLDER).listFiles(File::isDirectory);
+        if (dateFolders == null) {
+            return;
+        }
+        int imported = 0;
+        for (File dateFolder : dateFolders) {
+            String date = dateFolder.getName();
+            if (Constants.EXAMPLES_FOLDER_NAME.equals(date)) {
+                continue;
+            }
+            File[] files = dateFolder.listFiles();
+            if (files == null) {
+                continue;
+            }
+            Set<String> uploadNames = new HashSet<>();
+            for (File file : files) {
+                // 预处理生成的 H.264 文件和转码临时文件不是上传视频
+                if (file.isFile() && file.getName().contains(".") && !file.getName().endsWith(Constants.NORMALIZED_FILE_SUFFIX)
+                        && !file.getName().contains(Constants.VIDEO_CODE_TEMP_FILE_SUFFIX + ".")) {
+                    String baseName = file.getName().substring(0, file.getName().lastIndexOf("."));
+                    uploadNames.add(baseName);
+                    save(buildMediaInfo(MediaTypeEnum.UPLOAD, date + "/" + file.getName(), file, date + "/" + baseName + Constants.IMAGE_SUFFIX));
+                    imported++;
+                }
+            }
+            for (File file : files) {
+                if (file.isDirectory() && !uploadNames.contains(file.getName()) && new File(file, Constants.M3U8_NAME).exists()) {
+                    save(buildMediaInfo(MediaTypeEnum.OUTPUT, date + "/" + file.getName() + "/", file, date + "/" + file.getName() + Constants.IMAGE_SUFFIX));
+                    imported++;
+                }
+            }
+        }
+        logger.info("媒体目录导入已有文件 {} 条", imported);
+    }
+
+    private MediaInfo buildMediaInfo(MediaTypeEnum mediaType, String resourceName, File file, String thumbnail) {
+        MediaInfo mediaInfo = new MediaInfo();
+        mediaInfo.setResourceName(resourceName);
+        mediaInfo.setMediaType(mediaType.getType());
+        mediaInfo.setResourceDate(resourceName.substring(0, resourceName.indexOf("/")));
+        mediaInfo.setFilePath(file.getAbsolutePath());
+        mediaInfo.setThumbnail(thumbnail);
+        mediaInfo.setCreateTime(file.lastModified());
+        return mediaInfo;
+    }
+}
@@ -0,0 +1,136 @@
+package com.fwwb.app.component;
+
+import com.fwwb.app.entity.config.AppConfig;
+import com.fwwb.app.entity.constants.Constants;
+import com.fwwb.app.exception.BusinessException;
+import com.fwwb.app.utils.DateUtil;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * JFR 记录管理
+ * <p>
+ * 记录内容包括 JVM 自带事件以及 com.fwwb.app.jfr 下的自定义事件（外部命令、流水线阶段、媒体文件读取）。
+ * 可通过 app.jfr.enabled 在启动时开启持续记录，也可以通过 /jfr/* 接口随时开启、停止和导出。
+ */
+@Component
+@Lazy(false)
+public class JfrComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrComponent.class);
+
+    @Resource
+    private AppConfig appConfig;
+
+    private Recording recording;
+
+    @PostConstruct
+    public void init() {
+        // 配置错误时启动即失败，不等到第一次导出
+        getDumpFolder();
+        if (appConfig.getJfrEnabled()) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * 开启持续记录，只保留最近 maxAge / maxSize 范围内的数据
+     */
+    public synchronized String start() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new BusinessException("JFR 记录已在进行中");
+        }
+        destroy();
+        try {
+            Recording newRecording = new Recording(Configuration.getConfiguration(appConfig.getJfrSettings()));
+            newRecording.setName(Constants.JFR_RECORDING_NAME);
+            newRecording.setToDisk(true);
+            newRecording.setMaxAge(Duration.ofMillis(appConfig.getJfrMaxAge()));
+            newRecording.setMaxSize(appConfig.getJfrMaxSize());
+            newRecording.start();
+            recording = newRecording;
+        } catch (Exception e) {
+            throw new BusinessException("开启 JFR 记录失败: " + e.getMessage(), e);
+        }
+        logger.info("JFR 记录已开启，配置: {}", appConfig.getJfrSettings());
+        return getStatus();
+    }
+
+    /**
+     * 停止记录并导出，返回导出文件路径
+     */
+    public synchronized String stop() {
+        checkRecording();
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        String path = dump();
+        destroy();
+        logger.info("JFR 记录已停止");
+        return path;
+    }
+
+    /**
+     * 导出当前记录的数据，记录不中断，返回导出文件路径
+     */
+    public synchronized String dump() {
+        checkRecording();
+        File folder = getDumpFolder();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        File file = new File(folder, Constants.JFR_RECORDING_NAME + "-" + DateUtil.format(new Date(), "yyyyMMddHHmmss") + ".jfr");
+        try {
+            recording.dump(file.toPath());
+        } catch (Exception e) {
+            throw new BusinessException("导出 JFR 记录失败: " + e.getMessage(), e);
+        }
+        logger.info("JFR 记录已导出: {}", file.getAbsolutePath());
+        return file.getAbsolutePath();
+    }
+
+    public synchronized String getStatus() {
+        return recording == null ? RecordingState.CLOSED.name() : recording.getState().name();
+    }
+
+    /**
+     * 导出目录不能位于 assets 下：assets 作为静态资源对外提供，记录中有环境变量、系统属性和完整命令行，导出文件名也容易猜到
+     */
+    private File getDumpFolder() {
+        Path folder = new File(appConfig.getJfrFolder()).getAbsoluteFile().toPath().normalize();
+        for (String basePath : new String[]{Constants.BASE_PATH, System.getProperty("user.dir")}) {
+            Path assetsFolder = new File(basePath, Constants.ASSETS_FOLDER_NAME).getAbsoluteFile().toPath().normalize();
+            if (folder.startsWith(assetsFolder)) {
+                throw new BusinessException("JFR 导出目录不能位于 assets 下: " + folder);
+            }
+        }
+        return folder.toFile();
+    }
+
+    private void checkRecording() {
+        if (recording == null) {
+            throw new BusinessException("当前没有 JFR 记录");
+        }
+    }
+}
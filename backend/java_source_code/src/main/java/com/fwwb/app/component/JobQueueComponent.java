@@ -0,0 +1,434 @@
+package com.fwwb.app.component;
+
+import com.fwwb.app.entity.config.AppConfig;
+import com.fwwb.app.entity.constants.Constants;
+import com.fwwb.app.exception.BusinessException;
+import com.fwwb.app.utils.StringTools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 基于共享目录的任务队列
+ * <p>
+ * 目录结构（{queueFolder} 为所有节点挂载的同一个目录）：
+ * pending/{jobId}.job            等待处理
+ * running/{jobId}@{nodeId}@{token}.job   已被某个节点领取，文件修改时间即租约心跳；token 每次领取随机生成
+ * running/{jobId}@{nodeId}@{token}.finishing   处理结束、正在写结果的租约
+ * done/{jobId}.result            处理成功，记录输出目录
+ * failed/{jobId}.result          处理失败，记录错误信息
+ * published/{jobId}.result       流式处理已写出第一个分片，记录输出目录；处理仍在进行，租约保持到处理结束
+ * <p>
+ * 领取任务和回收过期租约都靠同一文件系统内的原子重命名完成，重命名成功的节点即获得该任务。
+ * 持有任务的节点定时刷新租约文件的修改时间，超过租约时间未刷新的任务会被任意节点放回 pending。
+ * 租约是否过期只看修改时间是否变化：回收方记录每个租约文件最后一次变化时本机的单调时钟，
+ * 不比较持有方写入的时间和本机时间，节点间的时钟偏差不会导致租约被提前回收。
+ * 同一任务被回收后再次领取（包括被同一节点领取）时租约文件名不同，过期的那次处理不会覆盖新租约。
+ * 处理结束后先把租约原子重命名为 .finishing，重命名成功（租约未被回收）才写结果，过期的处理不会为已放回 pending 的任务写结果；
+ * 写结果前节点宕机时，.finishing 文件同样按租约过期回收。
+ * 入口节点等待时遇到 published 即返回输出目录让客户端开始播放，之后由后台线程继续等待最终结果。
+ * worker 线程需要随应用启动，因此不参与懒加载；流水线通过懒加载代理注入，未启用队列时不会因此提前创建。
+ */
+@Component
+@Lazy(false)
+public class JobQueueComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobQueueComponent.class);
+
+    private static final String KEY_SOURCE_NAME1 = "sourceName1";
+    private static final String KEY_SOURCE_NAME2 = "sourceName2";
+    private static final String KEY_OUTPUT_FOLDER = "outputFolder";
+    private static final String KEY_ERROR = "error";
+    private static final String KEY_NODE_ID = "nodeId";
+
+    @Resource
+    private AppConfig appConfig;
+
+    @Lazy
+    @Resource
+    private VideoPipelineComponent videoPipelineComponent;
+
+    private File pendingFolder;
+    private File runningFolder;
+    private File doneFolder;
+    private File failedFolder;
+    private File publishedFolder;
+
+    private ExecutorService workerPool;
+    private ExecutorService resultPool;
+    private ScheduledExecutorService leasePool;
+
+    /**
+     * 本节点正在处理的任务：租约文件 -> jobId
+     */
+    private final Map<File, String> ownedJobs = new ConcurrentHashMap<>();
+
+    /**
+     * 回收线程观察到的租约：租约文件名 -> {最后一次看到的修改时间, 修改时间变化时的本机 nanoTime}
+     */
+    private final Map<String, long[]> observedLeases = new HashMap<>();
+
+    private volatile boolean running = false;
+
+    @PostConstruct
+    public void init() {
+        if (!appConfig.getQueueEnabled()) {
+            return;
+        }
+        String queueFolder = appConfig.getQueueFolder();
+        pendingFolder = new File(queueFolder + Constants.QUEUE_PENDING);
+        runningFolder = new File(queueFolder + Constants.QUEUE_RUNNING);
+        doneFolder = new File(queueFolder + Constants.QUEUE_DONE);
+        failedFolder = new File(queueFolder + Constants.QUEUE_FAILED);
+        publishedFolder = new File(queueFolder + Constants.QUEUE_PUBLISHED);
+        for (File folder : new File[]{pendingFolder, runningFolder, doneFolder, failedFolder, publishedFolder}) {
+            if (!folder.exists()) {
+                folder.mkdirs();
+            }
+        }
+
+        running = true;
+        AtomicInteger threadIndex = new AtomicInteger();
+        resultPool = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "queue-result-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("任务队列已启用，目录: {}，节点: {}，角色: {}", queueFolder, appConfig.getNodeId(), appConfig.getNodeRole());
+
+        if (!appConfig.isWorkerNode()) {
+            return;
+        }
+
+        int workerThreads = appConfig.getQueueWorkerThreads();
+        workerPool = Executors.newFixedThreadPool(workerThreads);
+        for (int i = 0; i < workerThreads; i++) {
+            workerPool.submit(this::workLoop);
+        }
+
+        long heartbeatInterval = appConfig.getQueueHeartbeatInterval();
+        leasePool = Executors.newSingleThreadScheduledExecutor();
+        leasePool.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+        leasePool.scheduleWithFixedDelay(this::reclaimExpiredLeases, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        if (leasePool != null) {
+            leasePool.shutdownNow();
+        }
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+        if (resultPool != null) {
+            resultPool.shutdownNow();
+        }
+        // 正常停机时把手上的任务放回队列，其他节点无需等待租约过期
+        for (Map.Entry<File, String> entry : ownedJobs.entrySet()) {
+            File pendingFile = new File(pendingFolder, entry.getValue() + Constants.QUEUE_JOB_SUFFIX);
+            if (moveAtomically(entry.getKey(), pendingFile)) {
+                logger.info("节点停止，任务 {} 已放回队列", entry.getValue());
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return appConfig.getQueueEnabled();
+    }
+
+    public long getWaitTimeout() {
+        return appConfig.getQueueWaitTimeout();
+    }
+
+    /**
+     * 提交任务，返回任务 id
+     */
+    public String submit(String sourceName1, String sourceName2) {
+        String jobId = System.currentTimeMillis() + "_" + StringTools.getRandomString(10);
+        Properties job = new Properties();
+        job.setProperty(KEY_SOURCE_NAME1, sourceName1);
+        job.setProperty(KEY_SOURCE_NAME2, sourceName2);
+        writeAtomically(job, new File(pendingFolder, jobId + Constants.QUEUE_JOB_SUFFIX));
+        logger.info("提交任务 {}: {} {}", jobId, sourceName1, sourceName2);
+        return jobId;
+    }
+
+    /**
+     * 等待任务完成，返回输出目录
+     */
+    public String waitForResult(String jobId) {
+        return waitForResult(jobId, System.currentTimeMillis() + appConfig.getQueueWaitTimeout());
+    }
+
+    /**
+     * 等待任务完成直到 deadline，批量等待时多个任务共用同一个截止时间
+     */
+    public String waitForResult(String jobId, long deadline) {
+        return waitFor(jobId, deadline, false);
+    }
+
+    /**
+     * 等待任务可以开始播放直到 deadline：流式处理写出第一个分片或任务完成时返回输出目录。
+     * 任务完成时调用 onFinished（提前返回时由后台线程在任务完成后调用），任务失败时不调用
+     */
+    public String waitForPlayable(String jobId, long deadline, Consumer<String> onFinished) {
+        String outputFolder = waitFor(jobId, deadline, true);
+        if (outputFolder != null) {
+            onFinished.accept(outputFolder);
+            return outputFolder;
+        }
+        File publishedFile = new File(publishedFolder, jobId + Constants.QUEUE_RESULT_SUFFIX);
+        Properties published = read(publishedFile);
+        publishedFile.delete();
+        resultPool.execute(() -> {
+            try {
+                onFinished.accept(waitForResult(jobId));
+            } catch (Exception e) {
+                logger.error("任务 {} 开始播放后处理失败", jobId, e);
+            }
+        });
+        return published.getProperty(KEY_OUTPUT_FOLDER);
+    }
+
+    /**
+     * 返回完成任务的输出目录；acceptPublished 为 true 时已发布但未完成的任务返回 null
+     */
+    private String waitFor(String jobId, long deadline, boolean acceptPublished) {
+        File doneFile = new File(doneFolder, jobId + Constants.QUEUE_RESULT_SUFFIX);
+        File failedFile = new File(failedFolder, jobId + Constants.QUEUE_RESULT_SUFFIX);
+        File publishedFile = new File(publishedFolder, jobId + Constants.QUEUE_RESULT_SUFFIX);
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                if (doneFile.exists()) {
+                    Properties result = read(doneFile);
+                    doneFile.delete();
+                    publishedFile.delete();
+                    return result.getProperty(KEY_OUTPUT_FOLDER);
+                }
+                if (failedFile.exists()) {
+                    Properties result = read(failedFile);
+                    failedFile.delete();
+                    publishedFile.delete();
+                    throw new BusinessException("任务处理失败: " + result.getProperty(KEY_ERROR));
+                }
+                if (acceptPublished && publishedFile.exists()) {
+                    return null;
+                }
+                Thread.sleep(appConfig.getQueuePollInterval());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("等待任务结果被中断");
+        }
+        throw new BusinessException("等待任务结果超时: " + jobId);
+    }
+
+    private void workLoop() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                if (!claimAndProcess()) {
+                    Thread.sleep(appConfig.getQueuePollInterval());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("任务队列处理异常", e);
+            }
+        }
+    }
+
+    /**
+     * 领取并处理一个任务，队列为空时返回 false
+     */
+    private boolean claimAndProcess() {
+        File[] pendingFiles = pendingFolder.listFiles((dir, name) -> name.endsWith(Constants.QUEUE_JOB_SUFFIX));
+        if (pendingFiles == null || pendingFiles.length == 0) {
+            return false;
+        }
+        // 先提交的任务先处理
+        Arrays.sort(pendingFiles, Comparator.comparing(File::getName));
+
+        for (File pendingFile : pendingFiles) {
+            String jobId = pendingFile.getName().substring(0, pendingFile.getName().length() - Constants.QUEUE_JOB_SUFFIX.length());
+            File leaseFile = new File(runningFolder, jobId + Constants.QUEUE_OWNER_SEPARATOR + appConfig.getNodeId()
+                    + Constants.QUEUE_OWNER_SEPARATOR + StringTools.getRandomString(8) + Constants.QUEUE_JOB_SUFFIX);
+            if (!moveAtomically(pendingFile, leaseFile)) {
+                // 已被其他节点领取
+                continue;
+            }
+            // 重命名会保留原修改时间，立即续约；续约失败说明租约已被回收
+            if (!leaseFile.setLastModified(System.currentTimeMillis())) {
+                continue;
+            }
+            ownedJobs.put(leaseFile, jobId);
+            try {
+                process(jobId, leaseFile);
+            } finally {
+                ownedJobs.remove(leaseFile);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void process(String jobId, File leaseFile) {
+        Properties result = new Properties();
+        result.setProperty(KEY_NODE_ID, appConfig.getNodeId());
+        File resultFolder;
+        try {
+            Properties job = read(leaseFile);
+            logger.info("节点 {} 开始处理任务 {}", appConfig.getNodeId(), jobId);
+            // 等待整个处理结束再提交结果，租约覆盖整个处理过程，worker 线程数即本节点同时处理的任务数
+            String outputFolder = videoPipelineComponent.process(job.getProperty(KEY_SOURCE_NAME1), job.getProperty(KEY_SOURCE_NAME2),
+                    playableFolder -> publish(jobId, leaseFile, playableFolder));
+            result.setProperty(KEY_OUTPUT_FOLDER, outputFolder);
+            resultFolder = doneFolder;
+        } catch (Exception e) {
+            logger.error("任务 {} 处理失败", jobId, e);
+            result.setProperty(KEY_ERROR, String.valueOf(e.getMessage()));
+            resultFolder = failedFolder;
+        }
+
+        // 和领取一样通过重命名确认租约仍归本次处理所有，回收和提交只有一方能成功
+        String leaseName = leaseFile.getName();
+        File finishingFile = new File(runningFolder, leaseName.substring(0, leaseName.length() - Constants.QUEUE_JOB_SUFFIX.length())
+                + Constants.QUEUE_FINISHING_SUFFIX);
+        ownedJobs.remove(leaseFile);
+        if (!moveAtomically(leaseFile, finishingFile)) {
+            // 租约已过期并被回收，任务会被重新领取处理，本次结果丢弃
+            logger.warn("任务 {} 的租约已失效，丢弃本节点的处理结果", jobId);
+            return;
+        }
+        ownedJobs.put(finishingFile, jobId);
+        try {
+            writeAtomically(result, new File(resultFolder, jobId + Constants.QUEUE_RESULT_SUFFIX));
+            finishingFile.delete();
+        } finally {
+            ownedJobs.remove(finishingFile);
+        }
+    }
+
+    /**
+     * 流式处理写出第一个分片时发布输出目录，入口节点据此提前返回
+     */
+    private void publish(String jobId, File leaseFile, String outputFolder) {
+        if (!leaseFile.exists()) {
+            return;
+        }
+        Properties published = new Properties();
+        published.setProperty(KEY_NODE_ID, appConfig.getNodeId());
+        published.setProperty(KEY_OUTPUT_FOLDER, outputFolder);
+        writeAtomically(published, new File(publishedFolder, jobId + Constants.QUEUE_RESULT_SUFFIX));
+    }
+
+    private void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<File, String> entry : ownedJobs.entrySet()) {
+            if (!entry.getKey().setLastModified(now)) {
+                logger.warn("任务 {} 续约失败，租约可能已被回收", entry.getValue());
+            }
+        }
+    }
+
+    private void reclaimExpiredLeases() {
+        try {
+            File[] leaseFiles = runningFolder.listFiles((dir, name) -> name.endsWith(Constants.QUEUE_JOB_SUFFIX)
+                    || name.endsWith(Constants.QUEUE_FINISHING_SUFFIX));
+            if (leaseFiles == null) {
+                return;
+            }
+            long now = System.nanoTime();
+            long leaseTimeout = TimeUnit.MILLISECONDS.toNanos(appConfig.getQueueLeaseTimeout());
+            Set<String> existing = new HashSet<>();
+            for (File leaseFile : leaseFiles) {
+                String name = leaseFile.getName();
+                long lastModified = leaseFile.lastModified();
+                // lastModified 为 0 表示文件已不存在
+                if (lastModified == 0) {
+                    continue;
+                }
+                existing.add(name);
+                long[] observed = observedLeases.get(name);
+                if (observed == null || observed[0] != lastModified) {
+                    // 第一次看到或已续约，从现在开始计时
+                    observedLeases.put(name, new long[]{lastModified, now});
+                    continue;
+                }
+                if (now - observed[1] < leaseTimeout) {
+                    continue;
+                }
+                String jobId = name.substring(0, name.indexOf(Constants.QUEUE_OWNER_SEPARATOR));
+                if (moveAtomically(leaseFile, new File(pendingFolder, jobId + Constants.QUEUE_JOB_SUFFIX))) {
+                    logger.warn("任务 {} 租约过期，已放回队列: {}", jobId, name);
+                }
+            }
+            observedLeases.keySet().retainAll(existing);
+        } catch (Exception e) {
+            logger.error("回收过期租约异常", e);
+        }
+    }
+
+    private boolean moveAtomically(File source, File target) {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 先写临时文件再重命名，其他节点不会读到写了一半的文件
+     */
+    private void writeAtomically(Properties properties, File target) {
+        File tempFile = new File(target.getParentFile(), target.getName() + "." + appConfig.getNodeId() + Constants.QUEUE_TEMP_SUFFIX);
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            properties.store(out, null);
+        } catch (Exception e) {
+            throw new BusinessException("写入队列文件失败: " + target.getName(), e);
+        }
+        try {
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            tempFile.delete();
+            throw new BusinessException("写入队列文件失败: " + target.getName(), e);
+        }
+    }
+
+    private Properties read(File file) {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (Exception e) {
+            throw new BusinessException("读取队列文件失败: " + file.getName(), e);
+        }
+        return properties;
+    }
+}
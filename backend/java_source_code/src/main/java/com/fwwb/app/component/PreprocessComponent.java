@@ -0,0 +1,184 @@
+package com.fwwb.app.component;
+
+import com.fwwb.app.entity.config.AppConfig;
+import com.fwwb.app.entity.constants.Constants;
+import com.fwwb.app.utils.FFmpegUtils;
+import com.fwwb.app.utils.ProcessUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 上传后的预处理
+ * <p>
+ * 上传完成到 getResult 之间通常有较长空闲，预处理在低优先级线程中提前完成：
+ * 非 H.264 的视频在原文件旁生成 {fileName}_h264.mp4 供检测使用（原文件保持不变）。
+ * 上传的视频在页面上只显示缩略图，不需要切片；预处理只做检测会用到的转码，getResult 等待的也只有这一步。
+ * getResult 开始时，已在执行的预处理会等待完成，尚未开始的直接取消；超过 ttl 仍未被使用的预处理会被取消。
+ * 只接收请求的 api 节点不做处理，也不做预处理。
+ * H.264 文件写完后才原子重命名到位，其他节点在预处理进行中领取任务时使用原文件，不会读到写了一半的文件。
+ */
+@Component
+public class PreprocessComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreprocessComponent.class);
+
+    private static final String VIDEO_CODE_H264 = "h264";
+
+    private static class PreprocessTask {
+        private final long submitTime = System.currentTimeMillis();
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private FutureTask<Void> future;
+    }
+
+    @Resource
+    private AppConfig appConfig;
+
+    @Resource
+    private FFmpegUtils ffmpegUtils;
+
+    @Resource
+    private VideoProcessComponent videoProcessComponent;
+
+    /**
+     * 上传资源名 -> 预处理任务
+     */
+    private final Map<String, PreprocessTask> tasks = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        int threads = appConfig.getPreprocessThreads();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(() -> {
+                        // 预处理线程发起的 ffmpeg 以低优先级运行，不和检测抢 CPU
+                        ProcessUtils.setLowPriority(true);
+                        runnable.run();
+                    }, "preprocess-" + threadIndex.incrementAndGet());
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        sweeper = Executors.newSingleThreadScheduledExecutor();
+        sweeper.scheduleWithFixedDelay(this::cancelExpired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return appConfig.getPreprocessEnabled() && appConfig.isWorkerNode();
+    }
+
+    /**
+     * 上传完成后提交预处理
+     *
+     * @param resourceName 上传资源名，如 20250412/7B2xvTWVcBBKT2xTmG9R.mp4
+     */
+    public void submit(String resourceName) {
+        PreprocessTask task = new PreprocessTask();
+        task.future = new FutureTask<>(() -> {
+            // 已被 prepare 或超时取消
+            if (task.started.compareAndSet(false, true)) {
+                preprocess(resourceName);
+            }
+        }, null);
+        tasks.put(resourceName, task);
+        executor.execute(task.future);
+    }
+
+    /**
+     * 处理开始前调用：正在执行的预处理等待完成，尚未开始的取消
+     */
+    public void prepare(String resourceName) {
+        PreprocessTask task = tasks.remove(resourceName);
+        if (task == null) {
+            return;
+        }
+        if (task.started.compareAndSet(false, true)) {
+            task.future.cancel(false);
+            return;
+        }
+        try {
+            task.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // 预处理失败不影响正式处理，直接使用原始输入
+            logger.warn("预处理失败，使用原始输入: {}", resourceName, e);
+        }
+    }
+
+    private void preprocess(String resourceName) {
+        String videoPath = Constants.VIDEO_FOLDER + resourceName;
+        String baseName = resourceName.substring(0, resourceName.lastIndexOf("."));
+        File normalizedFile = new File(Constants.VIDEO_FOLDER + videoProcessComponent.getNormalizedName(resourceName));
+        File tempFile = new File(Constants.VIDEO_FOLDER + baseName + Constants.VIDEO_CODE_TEMP_FILE_SUFFIX + ".mp4");
+        try {
+            // 转为检测脚本能直接处理的 H.264
+            String codec = ffmpegUtils.getVideoCodec(videoPath);
+            if (VIDEO_CODE_H264.equals(codec)) {
+                return;
+            }
+            ffmpegUtils.convertHevc2Mp4(videoPath, tempFile.getPath());
+            Files.move(tempFile.toPath(), normalizedFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("预处理转码完成: {} {} -> {}", resourceName, codec, VIDEO_CODE_H264);
+        } catch (Exception e) {
+            tempFile.delete();
+            if (Thread.currentThread().isInterrupted()) {
+                logger.info("预处理已取消: {}", resourceName);
+                return;
+            }
+            logger.error("预处理失败: {}", resourceName, e);
+        }
+    }
+
+    /**
+     * 超过 ttl 仍未被使用的预处理：未开始的直接取消，执行中的中断并结束 ffmpeg
+     */
+    private void cancelExpired() {
+        long expireTime = System.currentTimeMillis() - appConfig.getPreprocessTtl();
+        Iterator<Map.Entry<String, PreprocessTask>> iterator = tasks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, PreprocessTask> entry = iterator.next();
+            PreprocessTask task = entry.getValue();
+            if (task.submitTime > expireTime) {
+                continue;
+            }
+            iterator.remove();
+            if (task.future.isDone()) {
+                continue;
+            }
+            boolean notStarted = task.started.compareAndSet(false, true);
+            task.future.cancel(!notStarted);
+            logger.info("预处理超时未使用，已取消: {}", entry.getKey());
+        }
+    }
+}
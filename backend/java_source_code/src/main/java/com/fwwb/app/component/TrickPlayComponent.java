@@ -0,0 +1,254 @@
+package com.fwwb.app.component;
+
+import com.fwwb.app.entity.config.AppConfig;
+import com.fwwb.app.entity.constants.Constants;
+import com.fwwb.app.exception.BusinessException;
+import com.fwwb.app.utils.FFmpegUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 拖动预览（trick play）资源
+ * <p>
+ * thumbnails.vtt + sprite_xxx.jpg：按固定间隔截取的缩略图拼成雪碧图，WebVTT 记录每个时间段对应的图片区域；
+ * iframe.m3u8：#EXT-X-I-FRAMES-ONLY 播放列表，通过字节范围只引用分片中的关键帧，
+ * 每个分片开头的 PAT/PMT 通过 #EXT-X-MAP 引用，单独取出的关键帧也能解码；
+ * master.m3u8：主播放列表，引用 index.m3u8，并通过 #EXT-X-I-FRAME-STREAM-INF 声明 iframe.m3u8，
+ * 支持 I 帧播放列表的播放器（如 AVPlayer）加载 master.m3u8 即可在拖动时使用关键帧预览。
+ * 播放器拖动进度条时只需加载几十 KB 的雪碧图或单个关键帧，不必下载整个分片。
+ */
+@Component
+public class TrickPlayComponent {
+
+    private static class Segment {
+        private String name;
+        private double duration;
+    }
+
+    private static class KeyFrame {
+        private String segmentName;
+        /**
+         * 分片中第一个视频数据包之前的字节数，即 PAT/PMT 等表所在的区间
+         */
+        private long headerLength;
+        private double ptsTime;
+        private long offset;
+        private long length;
+    }
+
+    @Resource
+    private AppConfig appConfig;
+
+    @Resource
+    private FFmpegUtils ffmpegUtils;
+
+    public boolean isEnabled() {
+        return appConfig.getTrickplayEnabled();
+    }
+
+    /**
+     * 为输出目录生成雪碧图、WebVTT 索引和 I 帧播放列表
+     *
+     * @param outputFolder 输出目录（相对于视频目录），如 20250412/bt8QEFvafHHfsXUaXV7t7B2xvTWVcBBKT2xTmG9R
+     */
+    public void create(String outputFolder) {
+        File tsFolder = new File(Constants.VIDEO_FOLDER + outputFolder);
+        List<Segment> segments = readSegments(new File(tsFolder, Constants.M3U8_NAME));
+        if (segments.isEmpty()) {
+            return;
+        }
+        int[] resolution = ffmpegUtils.getVideoResolution(new File(tsFolder, segments.get(0).name).getPath());
+        createSprites(tsFolder, segments, resolution);
+        long iFrameBandwidth = createIFramePlaylist(tsFolder, segments);
+        createMasterPlaylist(tsFolder, segments, resolution, iFrameBandwidth);
+    }
+
+    private void createSprites(File tsFolder, List<Segment> segments, int[] resolution) {
+        int interval = appConfig.getTrickplayInterval();
+        int columns = appConfig.getTrickplayColumns();
+        int rows = appConfig.getTrickplayRows();
+        int width = appConfig.getTrickplayWidth();
+        // 保持宽高比，高度取偶数
+        int height = Math.max(2, (int) Math.round((double) width * resolution[1] / resolution[0] / 2) * 2);
+
+        ffmpegUtils.createSpriteSheets(new File(tsFolder, Constants.M3U8_NAME).getPath(), tsFolder,
+                interval, width, height, columns, rows);
+
+        double totalDuration = 0;
+        for (Segment segment : segments) {
+            totalDuration += segment.duration;
+        }
+        int tilesPerSheet = columns * rows;
+        StringBuilder vtt = new StringBuilder("WEBVTT\n\n");
+        for (int i = 0; i * interval < totalDuration; i++) {
+            int sheet = i / tilesPerSheet + 1;
+            int tile = i % tilesPerSheet;
+            vtt.append(formatVttTime(i * interval)).append(" --> ")
+                    .append(formatVttTime(Math.min((i + 1) * interval, totalDuration))).append("\n")
+                    .append(String.format("%s%03d.jpg#xywh=%d,%d,%d,%d", Constants.SPRITE_NAME_PREFIX, sheet,
+                            tile % columns * width, tile / columns * height, width, height))
+                    .append("\n\n");
+        }
+        write(new File(tsFolder, Constants.SPRITE_VTT_NAME), vtt.toString());
+    }
+
+    /**
+     * 生成 I 帧播放列表，返回其峰值码率（bit/s），没有关键帧时返回 0
+     */
+    private long createIFramePlaylist(File tsFolder, List<Segment> segments) {
+        List<KeyFrame> keyFrames = new ArrayList<>();
+        double endTime = 0;
+        for (Segment segment : segments) {
+            File segmentFile = new File(tsFolder, segment.name);
+            String packets = ffmpegUtils.getVideoPackets(segmentFile.getPath());
+            KeyFrame previous = null;
+            long headerLength = -1;
+            for (String line : packets.split("\n")) {
+                if (!line.contains("pts_time=")) {
+                    continue;
+                }
+                double ptsTime = 0;
+                long pos = -1;
+                boolean key = false;
+                for (String field : line.trim().split("\\|")) {
+                    String[] entry = field.split("=", 2);
+                    if (entry.length != 2 || "N/A".equals(entry[1])) {
+                        continue;
+                    }
+                    if ("pts_time".equals(entry[0])) {
+                        ptsTime = Double.parseDouble(entry[1]);
+                    } else if ("pos".equals(entry[0])) {
+                        pos = Long.parseLong(entry[1]);
+                    } else if ("flags".equals(entry[0])) {
+                        key = entry[1].startsWith("K");
+                    }
+                }
+                endTime = Math.max(endTime, ptsTime);
+                if (headerLength < 0 && pos >= 0) {
+                    headerLength = pos;
+                }
+                // 关键帧的字节范围到下一个视频数据包开始处为止
+                if (previous != null && previous.length == 0 && pos > previous.offset) {
+                    previous.length = pos - previous.offset;
+                }
+                if (key && pos >= 0) {
+                    KeyFrame keyFrame = new KeyFrame();
+                    keyFrame.segmentName = segment.name;
+                    keyFrame.headerLength = headerLength;
+                    keyFrame.ptsTime = ptsTime;
+                    keyFrame.offset = pos;
+                    keyFrames.add(keyFrame);
+                    previous = keyFrame;
+                }
+            }
+            // 分片中最后一个关键帧之后没有其他数据包时，范围到分片末尾
+            if (previous != null && previous.length == 0) {
+                previous.length = segmentFile.length() - previous.offset;
+            }
+        }
+        if (keyFrames.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder entries = new StringBuilder();
+        double maxDuration = 0;
+        long maxBandwidth = 0;
+        String mapSegment = null;
+        for (int i = 0; i < keyFrames.size(); i++) {
+            KeyFrame keyFrame = keyFrames.get(i);
+            double nextTime = i + 1 < keyFrames.size() ? keyFrames.get(i + 1).ptsTime : endTime;
+            double duration = Math.max(nextTime - keyFrame.ptsTime, 0.001);
+            maxDuration = Math.max(maxDuration, duration);
+            maxBandwidth = Math.max(maxBandwidth, (long) Math.ceil(keyFrame.length * 8 / duration));
+            // 进入新分片时先声明该分片的 PAT/PMT，其后的关键帧都依赖它解码
+            if (!keyFrame.segmentName.equals(mapSegment) && keyFrame.headerLength > 0) {
+                entries.append("#EXT-X-MAP:URI=\"").append(keyFrame.segmentName)
+                        .append("\",BYTERANGE=\"").append(keyFrame.headerLength).append("@0\"\n");
+                mapSegment = keyFrame.segmentName;
+            }
+            entries.append(String.format(Locale.ROOT, "#EXTINF:%.3f,\n", duration))
+                    .append("#EXT-X-BYTERANGE:").append(keyFrame.length).append("@").append(keyFrame.offset).append("\n")
+                    .append(keyFrame.segmentName).append("\n");
+        }
+
+        // I 帧播放列表中使用 EXT-X-MAP 需要版本 5
+        String playlist = "#EXTM3U\n" +
+                "#EXT-X-VERSION:5\n" +
+                "#EXT-X-TARGETDURATION:" + (int) Math.ceil(maxDuration) + "\n" +
+                "#EXT-X-MEDIA-SEQUENCE:0\n" +
+                "#EXT-X-PLAYLIST-TYPE:VOD\n" +
+                "#EXT-X-I-FRAMES-ONLY\n" +
+                entries +
+                "#EXT-X-ENDLIST\n";
+        write(new File(tsFolder, Constants.IFRAME_M3U8_NAME), playlist);
+        return maxBandwidth;
+    }
+
+    /**
+     * 生成主播放列表，声明普通播放列表和 I 帧播放列表，码率取各分片（关键帧）的峰值
+     */
+    private void createMasterPlaylist(File tsFolder, List<Segment> segments, int[] resolution, long iFrameBandwidth) {
+        long bandwidth = 0;
+        for (Segment segment : segments) {
+            if (segment.duration > 0) {
+                bandwidth = Math.max(bandwidth, (long) Math.ceil(new File(tsFolder, segment.name).length() * 8 / segment.duration));
+            }
+        }
+        String resolutionText = resolution[0] + "x" + resolution[1];
+        StringBuilder playlist = new StringBuilder("#EXTM3U\n")
+                .append("#EXT-X-VERSION:5\n")
+                .append("#EXT-X-STREAM-INF:BANDWIDTH=").append(bandwidth).append(",RESOLUTION=").append(resolutionText).append("\n")
+                .append(Constants.M3U8_NAME).append("\n");
+        if (iFrameBandwidth > 0) {
+            playlist.append("#EXT-X-I-FRAME-STREAM-INF:BANDWIDTH=").append(iFrameBandwidth)
+                    .append(",RESOLUTION=").append(resolutionText)
+                    .append(",URI=\"").append(Constants.IFRAME_M3U8_NAME).append("\"\n");
+        }
+        write(new File(tsFolder, Constants.MASTER_M3U8_NAME), playlist.toString());
+    }
+
+    private List<Segment> readSegments(File m3u8File) {
+        List<Segment> segments = new ArrayList<>();
+        if (!m3u8File.exists()) {
+            return segments;
+        }
+        try {
+            double duration = 0;
+            for (String line : Files.readAllLines(m3u8File.toPath(), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (line.startsWith("#EXTINF:")) {
+                    duration = Double.parseDouble(line.substring("#EXTINF:".length(), line.indexOf(",")));
+                } else if (!line.isEmpty() && !line.startsWith("#")) {
+                    Segment segment = new Segment();
+                    segment.name = line;
+                    segment.duration = duration;
+                    segments.add(segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new BusinessException("读取播放列表失败: " + m3u8File.getPath(), e);
+        }
+        return segments;
+    }
+
+    private String formatVttTime(double seconds) {
+        long millis = Math.round(seconds * 1000);
+        return String.format("%02d:%02d:%02d.%03d", millis / 3600000, millis / 60000 % 60, millis / 1000 % 60, millis % 1000);
+    }
+
+    private void write(File file, String content) {
+        try {
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new BusinessException("写入文件失败: " + file.getPath(), e);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.fwwb.app.component;
+
+import com.fwwb.app.entity.config.AppConfig;
+import com.fwwb.app.entity.vo.BatchResultVO;
+import com.fwwb.app.exception.BusinessException;
+import com.fwwb.app.jfr.PipelineStageEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 分阶段处理流水线
+ * <p>
+ * 等待上传预处理 -> 检测 -> 编码检查/转码 -> 切片 -> 缩略图/拖动预览/入库，每个阶段有独立的线程池和有界队列，
+ * 不同任务的不同阶段可以同时进行，整体吞吐取决于最慢的阶段而不是各阶段耗时之和。
+ * 下游队列满时上游线程阻塞等待，避免中间结果无限堆积。
+ * 流式模式下第一个分片写出后即返回输出目录，客户端边处理边播放，缩略图等收尾工作在处理结束后完成；
+ * 队列节点则等待整个处理结束，通过回调提前通知可以播放，保证租约覆盖整个处理过程。
+ */
+@Component
+public class VideoPipelineComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoPipelineComponent.class);
+
+    /**
+     * 流式模式下检查是否已写出第一个分片的间隔（毫秒）
+     */
+    private static final long SEGMENT_WATCH_INTERVAL = 500;
+
+    @Resource
+    private AppConfig appConfig;
+
+    @Resource
+    private VideoProcessComponent videoProcessComponent;
+
+    @Resource
+    private PreprocessComponent preprocessComponent;
+
+    @Resource
+    private TrickPlayComponent trickPlayComponent;
+
+    private ThreadPoolExecutor preparePool;
+    private ThreadPoolExecutor detectPool;
+    private ThreadPoolExecutor transcodePool;
+    private ThreadPoolExecutor segmentPool;
+    private ThreadPoolExecutor thumbnailPool;
+    private ScheduledExecutorService segmentWatcher;
+
+    @PostConstruct
+    public void init() {
+        int queueCapacity = appConfig.getPipelineQueueCapacity();
+        // 等待预处理几乎不占资源，每个排队中的任务一个线程，不让检测线程阻塞在低优先级的预处理上
+        preparePool = newStagePool("prepare", queueCapacity, queueCapacity);
+        detectPool = newStagePool("detect", appConfig.getPipelineDetectThreads(), queueCapacity);
+        transcodePool = newStagePool("transcode", appConfig.getPipelineTranscodeThreads(), queueCapacity);
+        segmentPool = newStagePool("segment", appConfig.getPipelineSegmentThreads(), queueCapacity);
+        thumbnailPool = newStagePool("thumbnail", appConfig.getPipelineThumbnailThreads(), queueCapacity);
+        segmentWatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pipeline-segment-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        preparePool.shutdownNow();
+        detectPool.shutdownNow();
+        transcodePool.shutdownNow();
+        segmentPool.shutdownNow();
+        thumbnailPool.shutdownNow();
+        segmentWatcher.shutdownNow();
+    }
+
+    /**
+     * 提交一组输入，返回处理全部完成时的输出目录（相对于视频目录，以 / 结尾）的 future。
+     * 流式模式下第一个分片写出、可以开始播放时调用一次 onPlayable
+     */
+    public CompletableFuture<String> submit(String sourceName1, String sourceName2, Consumer<String> onPlayable) {
+        // 上一阶段完成（或提交）的时间，用于统计各阶段的排队时间
+        long[] handoffTime = {System.nanoTime()};
+        if (appConfig.getPipelineStreaming()) {
+            return submitStreaming(sourceName1, sourceName2, handoffTime, onPlayable);
+        }
+        return prepare(sourceName1, sourceName2, handoffTime)
+                .thenApplyAsync(ignored -> runStage("detect", sourceName1, sourceName2, handoffTime,
+                        () -> videoProcessComponent.detect(sourceName1, sourceName2)), detectPool)
+                .thenApplyAsync(outputFolder -> runStage("transcode", sourceName1, sourceName2, handoffTime, () -> {
+                    videoProcessComponent.transcode(outputFolder);
+                    return outputFolder;
+                }), transcodePool)
+                .thenApplyAsync(outputFolder -> runStage("segment", sourceName1, sourceName2, handoffTime, () -> {
+                    videoProcessComponent.segment(outputFolder);
+                    return outputFolder;
+                }), segmentPool)
+                .thenApplyAsync(outputFolder -> runStage("finish", sourceName1, sourceName2, handoffTime,
+                        () -> finish(outputFolder, sourceName1, sourceName2)), thumbnailPool);
+    }
+
+    /**
+     * 流式模式在检测阶段直接写出分片，跳过转码和切片阶段。
+     * 播放列表中出现第一个分片时通知 onPlayable；处理失败时删除输出目录，已经开始播放的客户端不会拿到不完整的结果
+     */
+    private CompletableFuture<String> submitStreaming(String sourceName1, String sourceName2, long[] handoffTime,
+                                                      Consumer<String> onPlayable) {
+        return prepare(sourceName1, sourceName2, handoffTime)
+                .thenApplyAsync(ignored -> runStage("streamDetect", sourceName1, sourceName2, handoffTime, () -> {
+                    String outputFolder = videoProcessComponent.createStreamOutputFolder(sourceName1, sourceName2);
+                    AtomicBoolean notified = new AtomicBoolean(false);
+                    ScheduledFuture<?> watch = segmentWatcher.scheduleWithFixedDelay(() -> {
+                        if (!notified.get() && videoProcessComponent.isPlayable(outputFolder)) {
+                            notified.set(true);
+                            try {
+                                onPlayable.accept(outputFolder + "/");
+                            } catch (Exception e) {
+                                logger.warn("通知可以播放失败: {}", outputFolder, e);
+                            }
+                        }
+                    }, SEGMENT_WATCH_INTERVAL, SEGMENT_WATCH_INTERVAL, TimeUnit.MILLISECONDS);
+                    try {
+                        return videoProcessComponent.streamDetect(sourceName1, sourceName2);
+                    } catch (RuntimeException e) {
+                        videoProcessComponent.deleteOutputFolder(outputFolder);
+                        throw e;
+                    } finally {
+                        watch.cancel(false);
+                    }
+                }), detectPool)
+                .thenApplyAsync(outputFolder -> runStage("finish", sourceName1, sourceName2, handoffTime,
+                        () -> finish(outputFolder, sourceName1, sourceName2)), thumbnailPool);
+    }
+
+    /**
+     * 提交一组输入，返回可以开始播放时的输出目录的 future：普通模式下为处理全部完成，流式模式下为第一个分片写出
+     */
+    private CompletableFuture<String> submitPlayable(String sourceName1, String sourceName2) {
+        CompletableFuture<String> playable = new CompletableFuture<>();
+        submit(sourceName1, sourceName2, playable::complete).whenComplete((outputFolder, e) -> {
+            if (e == null) {
+                playable.complete(outputFolder);
+            } else if (!playable.completeExceptionally(e)) {
+                // 已经返回给客户端后才失败，只能记录
+                logger.error("流式处理失败: {} {}", sourceName1, sourceName2, e);
+            }
+        });
+        return playable;
+    }
+
+    /**
+     * 执行一个阶段并记录 JFR 事件
+     */
+    private String runStage(String stage, String sourceName1, String sourceName2, long[] handoffTime, Supplier<String> action) {
+        PipelineStageEvent event = new PipelineStageEvent();
+        event.begin();
+        event.queueTime = System.nanoTime() - handoffTime[0];
+        try {
+            String result = action.get();
+            event.success = true;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage;
+                event.sourceName1 = sourceName1;
+                event.sourceName2 = sourceName2;
+                event.commit();
+            }
+            handoffTime[0] = System.nanoTime();
+        }
+    }
+
+    /**
+     * 在单独的阶段等待输入的上传预处理结束（未开始的直接取消），完成后才交给检测线程，
+     * 保证检测读取到预处理生成的文件，同时检测线程不会被正在执行的低优先级预处理占住
+     */
+    private CompletableFuture<String> prepare(String sourceName1, String sourceName2, long[] handoffTime) {
+        return CompletableFuture.supplyAsync(() -> runStage("prepare", sourceName1, sourceName2, handoffTime, () -> {
+            preprocessComponent.prepare(sourceName1);
+            preprocessComponent.prepare(sourceName2);
+            return null;
+        }), preparePool);
+    }
+
+    private String finish(String outputFolder, String sourceName1, String sourceName2) {
+        videoProcessComponent.thumbnail(outputFolder);
+        if (trickPlayComponent.isEnabled()) {
+            // 拖动预览不是必需资源，生成失败不影响处理结果
+            try {
+                trickPlayComponent.create(outputFolder);
+            } catch (Exception e) {
+                logger.warn("生成拖动预览失败: {}", outputFolder, e);
+            }
+        }
+        videoProcessComponent.catalogOutput(outputFolder, sourceName1, sourceName2);
+        return outputFolder + "/";
+    }
+
+    /**
+     * 提交一组输入并等待可以开始播放，流式模式下处理仍在后台继续
+     */
+    public String process(String sourceName1, String sourceName2) {
+        return await(submitPlayable(sourceName1, sourceName2), System.currentTimeMillis() + appConfig.getPipelineWaitTimeout());
+    }
+
+    /**
+     * 提交一组输入并等待处理全部完成，流式模式下第一个分片写出时调用一次 onPlayable
+     */
+    public String process(String sourceName1, String sourceName2, Consumer<String> onPlayable) {
+        return await(submit(sourceName1, sourceName2, onPlayable), System.currentTimeMillis() + appConfig.getPipelineWaitTimeout());
+    }
+
+    /**
+     * 批量提交，每组都可以开始播放或失败后按提交顺序返回每组输入的结果，单组失败不影响其他组
+     */
+    public List<BatchResultVO> processBatch(List<String> sourceNames1, List<String> sourceNames2) {
+        List<BatchResultVO> results = new ArrayList<>();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < sourceNames1.size(); i++) {
+            BatchResultVO result = new BatchResultVO(sourceNames1.get(i), sourceNames2.get(i));
+            results.add(result);
+            try {
+                futures.add(submitPlayable(sourceNames1.get(i), sourceNames2.get(i)));
+            } catch (RejectedExecutionException e) {
+                result.error("提交失败: " + e.getMessage());
+                futures.add(null);
+            }
+        }
+        long deadline = System.currentTimeMillis() + appConfig.getPipelineWaitTimeout();
+        for (int i = 0; i < futures.size(); i++) {
+            if (futures.get(i) == null) {
+                continue;
+            }
+            try {
+                results.get(i).success(await(futures.get(i), deadline));
+            } catch (BusinessException e) {
+                results.get(i).error(e.getMessage());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 等待到 deadline 为止，任务滞留在已关闭的线程池中时也不会一直阻塞请求线程
+     */
+    private String await(CompletableFuture<String> future, long deadline) {
+        try {
+            return future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("等待处理结果被中断");
+        } catch (TimeoutException e) {
+            throw new BusinessException("等待处理结果超时");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BusinessException) {
+                throw (BusinessException) cause;
+            }
+            logger.error("流水线处理失败", cause);
+            throw new BusinessException("处理失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    private ThreadPoolExecutor newStagePool(String stage, int threads, int queueCapacity) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "pipeline-" + stage + "-" + threadIndex.incrementAndGet()),
+                (runnable, executor) -> {
+                    // 队列已满时阻塞提交方，形成背压
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("流水线已关闭: " + stage);
+                    }
+                    try {
+                        executor.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("提交到阶段 " + stage + " 被中断", e);
+                    }
+                });
+    }
+}
@@ -0,0 +1,238 @@
+package com.fwwb.app.component;
+
+import com.fwwb.app.entity.constants.Constants;
+import com.fwwb.app.entity.enums.MediaTypeEnum;
+import com.fwwb.app.entity.po.MediaInfo;
+import com.fwwb.app.exception.BusinessException;
+import com.fwwb.app.utils.FFmpegUtils;
+import com.fwwb.app.utils.ProcessUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * 视频处理流程：检测脚本 -> 编码检查/HEVC 转码 -> 切片 -> 缩略图，流式模式下检测和切片合并为一步
+ * 每一步单独暴露，供 VideoPipelineComponent 分阶段调度
+ */
+@Component
+public class VideoProcessComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoProcessComponent.class);
+
+    @Resource
+    private FFmpegUtils ffmpegUtils;
+
+    @Resource
+    private CatalogComponent catalogComponent;
+
+    /**
+     * 调用检测脚本，返回输出目录（相对于视频目录）
+     */
+    public String detect(String sourceName1, String sourceName2) {
+        String inputName1 = getInputName(sourceName1);
+        String inputName2 = getInputName(sourceName2);
+        String cmd = String.format(Constants.CMD, Constants.SCRIPT_PATH,
+                Constants.VIDEO_FOLDER + inputName1,
+                Constants.VIDEO_FOLDER + inputName2);
+
+        ProcessUtils.executeCommand(cmd, true);
+
+        // 检测脚本按实际输入的文件名命名输出目录，使用预处理文件时移动到按上传文件名命名的目录
+        String outputFolder = getOutputFolder(sourceName1, sourceName2);
+        String scriptOutputFolder = getOutputFolder(inputName1, inputName2);
+        if (!scriptOutputFolder.equals(outputFolder)) {
+            File target = new File(Constants.VIDEO_FOLDER + outputFolder);
+            FileSystemUtils.deleteRecursively(target);
+            try {
+                Files.move(new File(Constants.VIDEO_FOLDER + scriptOutputFolder).toPath(), target.toPath());
+            } catch (IOException e) {
+                throw new BusinessException("移动检测结果失败: " + scriptOutputFolder, e);
+            }
+        }
+        return outputFolder;
+    }
+
+    /**
+     * 处理时实际读取的输入：预处理生成了 H.264 文件时使用该文件，否则使用上传的原文件
+     *
+     * @param sourceName 上传资源名，如 20250412/7B2xvTWVcBBKT2xTmG9R.mp4
+     * @return 相对于视频目录的文件名
+     */
+    public String getInputName(String sourceName) {
+        String normalizedName = getNormalizedName(sourceName);
+        return new File(Constants.VIDEO_FOLDER + normalizedName).exists() ? normalizedName : sourceName;
+    }
+
+    /**
+     * 预处理生成的 H.264 文件，与原文件在同一目录，如 20250412/7B2xvTWVcBBKT2xTmG9R_h264.mp4
+     */
+    public String getNormalizedName(String sourceName) {
+        return sourceName.substring(0, sourceName.lastIndexOf(".")) + Constants.NORMALIZED_FILE_SUFFIX;
+    }
+
+    /**
+     * 清空并创建流式处理的输出目录，返回输出目录（相对于视频目录）。
+     * 输出目录名只由两个输入决定，同一组输入上一次处理留下的分片必须先删除，否则无法判断本次是否生成了输出
+     */
+    public String createStreamOutputFolder(String sourceName1, String sourceName2) {
+        String outputFolder = getOutputFolder(sourceName1, sourceName2);
+        File tsFolder = new File(Constants.VIDEO_FOLDER + outputFolder);
+        FileSystemUtils.deleteRecursively(tsFolder);
+        tsFolder.mkdirs();
+        return outputFolder;
+    }
+
+    /**
+     * 流式检测，直接在输出目录生成 HLS 分片，返回输出目录（相对于视频目录）。
+     * 调用前需要先由 createStreamOutputFolder 清空输出目录
+     */
+    public String streamDetect(String sourceName1, String sourceName2) {
+        String videoPath1 = Constants.VIDEO_FOLDER + getInputName(sourceName1);
+        String videoPath2 = Constants.VIDEO_FOLDER + getInputName(sourceName2);
+        String outputFolder = getOutputFolder(sourceName1, sourceName2);
+        File tsFolder = new File(Constants.VIDEO_FOLDER + outputFolder);
+
+        // 以输入 1 的尺寸为准，libx264 的 yuv420p 要求宽高为偶数
+        int[] resolution = ffmpegUtils.getVideoResolution(videoPath1);
+        int width = resolution[0] / 2 * 2;
+        int height = resolution[1] / 2 * 2;
+        String frameRate = ffmpegUtils.getVideoFrameRate(videoPath1);
+
+        ffmpegUtils.streamDetect2Ts(videoPath1, videoPath2, Constants.STREAM_SCRIPT_PATH, width, height, frameRate, tsFolder);
+
+        // 各段命令都成功但输入没有任何帧时不会生成分片
+        if (!new File(tsFolder, Constants.FIRST_TS_NAME).exists()) {
+            throw new BusinessException("流式处理失败，未生成视频分片: " + outputFolder);
+        }
+        return outputFolder;
+    }
+
+    /**
+     * 播放列表中已有分片，客户端可以开始播放
+     */
+    public boolean isPlayable(String outputFolder) {
+        File m3u8File = new File(Constants.VIDEO_FOLDER + outputFolder + "/" + Constants.M3U8_NAME);
+        try {
+            return m3u8File.exists() && new String(Files.readAllBytes(m3u8File.toPath()), StandardCharsets.UTF_8).contains("#EXTINF:");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 删除输出目录，用于清理失败的处理结果
+     */
+    public void deleteOutputFolder(String outputFolder) {
+        FileSystemUtils.deleteRecursively(new File(Constants.VIDEO_FOLDER + outputFolder));
+    }
+
+    public String getOutputFolder(String sourceName1, String sourceName2) {
+        String date = sourceName1.substring(0, sourceName1.lastIndexOf("/"));
+        String fileName1 = sourceName1.substring(sourceName1.lastIndexOf("/") + 1, sourceName1.lastIndexOf("."));
+        String fileName2 = sourceName2.substring(sourceName2.lastIndexOf("/") + 1, sourceName2.lastIndexOf("."));
+
+        return date + "/" + fileName1 + fileName2;
+    }
+
+    /**
+     * 检查输出视频编码，HEVC 转为 H.264
+     */
+    public void transcode(String outputFolder) {
+        String videoPath = Constants.VIDEO_FOLDER + outputFolder + "/" + Constants.OUTPUT_NAME;
+        String codec = ffmpegUtils.getVideoCodec(videoPath);
+        if (Constants.VIDEO_CODE_HEVC.equals(codec)) {
+            String tempFileName = videoPath + Constants.VIDEO_CODE_TEMP_FILE_SUFFIX;
+            new File(videoPath).renameTo(new File(tempFileName));
+            ffmpegUtils.convertHevc2Mp4(tempFileName, videoPath);
+            new File(tempFileName).delete();
+        }
+    }
+
+    /**
+     * 输出视频切片为 ts + m3u8，完成后删除原视频
+     */
+    public void segment(String outputFolder) {
+        String videoPath = Constants.VIDEO_FOLDER + outputFolder + "/" + Constants.OUTPUT_NAME;
+        File videoFile = new File(videoPath);
+        ffmpegUtils.convertVideo2Ts(videoFile.getParentFile(), videoPath);
+        videoFile.delete();
+    }
+
+    public void thumbnail(String outputFolder) {
+        createOutputVideoThumbnail(Constants.VIDEO_FOLDER + outputFolder + "/" + Constants.FIRST_TS_NAME);
+    }
+
+    /**
+     * 上传完成后写入媒体目录，时长和编码在这里读取，不依赖预处理是否执行
+     *
+     * @param resourceName 上传资源名，如 20250412/7B2xvTWVcBBKT2xTmG9R.mp4
+     */
+    public void catalogUpload(String resourceName) {
+        String videoPath = Constants.VIDEO_FOLDER + resourceName;
+        MediaInfo mediaInfo = new MediaInfo();
+        mediaInfo.setResourceName(resourceName);
+        mediaInfo.setMediaType(MediaTypeEnum.UPLOAD.getType());
+        mediaInfo.setResourceDate(resourceName.substring(0, resourceName.indexOf("/")));
+        mediaInfo.setFilePath(new File(videoPath).getAbsolutePath());
+        mediaInfo.setThumbnail(resourceName.substring(0, resourceName.lastIndexOf(".")) + Constants.IMAGE_SUFFIX);
+        probe(mediaInfo, videoPath, videoPath);
+        catalogComponent.save(mediaInfo);
+    }
+
+    /**
+     * 处理完成后写入媒体目录
+     *
+     * @param outputFolder 输出目录，如 20250412/bt8QEFvafHHfsXUaXV7t7B2xvTWVcBBKT2xTmG9R
+     */
+    public void catalogOutput(String outputFolder, String sourceName1, String sourceName2) {
+        String folderPath = Constants.VIDEO_FOLDER + outputFolder;
+        MediaInfo mediaInfo = new MediaInfo();
+        mediaInfo.setResourceName(outputFolder + "/");
+        mediaInfo.setMediaType(MediaTypeEnum.OUTPUT.getType());
+        mediaInfo.setResourceDate(outputFolder.substring(0, outputFolder.indexOf("/")));
+        mediaInfo.setFilePath(new File(folderPath).getAbsolutePath());
+        mediaInfo.setThumbnail(outputFolder + Constants.IMAGE_SUFFIX);
+        mediaInfo.setSourceName1(sourceName1);
+        mediaInfo.setSourceName2(sourceName2);
+        probe(mediaInfo, folderPath + "/" + Constants.M3U8_NAME, folderPath + "/" + Constants.FIRST_TS_NAME);
+        catalogComponent.save(mediaInfo);
+    }
+
+    /**
+     * 读取时长和编码，探测失败不影响入库
+     */
+    private void probe(MediaInfo mediaInfo, String durationPath, String codecPath) {
+        try {
+            mediaInfo.setDuration(ffmpegUtils.getVideoInfoDuration(durationPath));
+            mediaInfo.setCodec(ffmpegUtils.getVideoCodec(codecPath));
+        } catch (Exception e) {
+            logger.warn("读取视频信息失败: {}", durationPath, e);
+        }
+    }
+
+    // D:/Programs/FFWB/ffwb-app/backend/assets/video/20250412/7B2xvTWVcBBKT2xTmG9R.mp4
+    public void createVideoThumbnail(String videoPath) {
+        String imagePath = Constants.IMAGE_FOLDER +
+                videoPath.substring(
+                        Constants.VIDEO_FOLDER.length(),
+                        videoPath.lastIndexOf(".")
+                ) + Constants.IMAGE_SUFFIX;
+        ffmpegUtils.createVideoThumbnail(videoPath, imagePath);
+    }
+
+    // D:/Programs/FFWB/ffwb-app/backend/assets/video/20250412/bt8QEFvafHHfsXUaXV7t7B2xvTWVcBBKT2xTmG9R/0000.ts
+    public void createOutputVideoThumbnail(String videoPath) {
+        String imagePath = Constants.IMAGE_FOLDER + videoPath.substring(
+                Constants.VIDEO_FOLDER.length(),
+                videoPath.lastIndexOf("/")
+        ) + Constants.IMAGE_SUFFIX;
+        ffmpegUtils.createVideoThumbnail(videoPath, imagePath);
+    }
+}
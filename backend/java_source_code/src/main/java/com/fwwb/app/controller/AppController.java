@@ -1,18 +1,25 @@
 package com.fwwb.app.controller;
 
+import com.fwwb.app.component.CatalogComponent;
+import com.fwwb.app.component.JobQueueComponent;
+import com.fwwb.app.component.PreprocessComponent;
+import com.fwwb.app.component.VideoPipelineComponent;
+import com.fwwb.app.component.VideoProcessComponent;
 import com.fwwb.app.entity.constants.Constants;
 import com.fwwb.app.entity.enums.ResponseCodeEnum;
+import com.fwwb.app.entity.po.MediaInfo;
+import com.fwwb.app.entity.vo.BatchResultVO;
 import com.fwwb.app.entity.vo.ResponseVO;
 import com.fwwb.app.exception.BusinessException;
+import com.fwwb.app.jfr.MediaServeEvent;
 import com.fwwb.app.utils.DateUtil;
-import com.fwwb.app.utils.FFmpegUtils;
-import com.fwwb.app.utils.ProcessUtils;
 import com.fwwb.app.utils.StringTools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -24,7 +31,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 @RestController
 @RequestMapping("/")
@@ -34,7 +43,19 @@ public class AppController extends ABaseController {
     private static final Logger log = LoggerFactory.getLogger(AppController.class);
 
     @Resource
-    private FFmpegUtils ffmpegUtils;
+    private VideoProcessComponent videoProcessComponent;
+
+    @Resource
+    private VideoPipelineComponent videoPipelineComponent;
+
+    @Resource
+    private JobQueueComponent jobQueueComponent;
+
+    @Resource
+    private CatalogComponent catalogComponent;
+
+    @Resource
+    private PreprocessComponent preprocessComponent;
 
     @RequestMapping("/imageResource")
     public void getResource(HttpServletResponse response, @NotEmpty String imagePath) {
@@ -75,40 +96,74 @@ public class AppController extends ABaseController {
 
         file.transferTo(new File(filePath));
 
-        createVideoThumbnail(filePath);
+        videoProcessComponent.createVideoThumbnail(filePath);
 
-        return getSuccessResponseVO(day + "/" + realFileName);
+        String resourceName = day + "/" + realFileName;
+        videoProcessComponent.catalogUpload(resourceName);
+        if (preprocessComponent.isEnabled()) {
+            preprocessComponent.submit(resourceName);
+        }
+
+        return getSuccessResponseVO(resourceName);
     }
 
     @RequestMapping("/getResult")
     public ResponseVO getResult(@NotEmpty String sourceName1, @NotEmpty String sourceName2) {
-        String scriptPath = Constants.SCRIPT_PATH;
-        String videoFolder = Constants.VIDEO_FOLDER;
-        String cmd = String.format(Constants.CMD, scriptPath,
-                Constants.VIDEO_FOLDER + sourceName1,
-                Constants.VIDEO_FOLDER + sourceName2);
-
-        ProcessUtils.executeCommand(cmd, true);
-
-        String date = sourceName1.substring(0, sourceName1.lastIndexOf("/"));
-        String fileName1 = sourceName1.substring(sourceName1.lastIndexOf("/") + 1, sourceName1.lastIndexOf("."));
-        String fileName2 = sourceName2.substring(sourceName2.lastIndexOf("/") + 1, sourceName2.lastIndexOf("."));
-
-        String outputFolder = date + "/" + fileName1 + fileName2;
-
-        convertVideo2Ts(Constants.VIDEO_FOLDER + outputFolder + "/" + Constants.OUTPUT_NAME);
-
-        createOutputVideoThumbnail(Constants.VIDEO_FOLDER + outputFolder + "/" + Constants.FIRST_TS_NAME);
+        if (jobQueueComponent.isEnabled()) {
+            // 预处理状态只在上传节点上，先在本节点等待（或取消）预处理，领取任务的节点才能看到预处理生成的文件
+            preprocessComponent.prepare(sourceName1);
+            preprocessComponent.prepare(sourceName2);
+            String jobId = jobQueueComponent.submit(sourceName1, sourceName2);
+            String outputFolder = jobQueueComponent.waitForPlayable(jobId, System.currentTimeMillis() + jobQueueComponent.getWaitTimeout(),
+                    finishedFolder -> catalogQueueResult(finishedFolder, sourceName1, sourceName2));
+            return getSuccessResponseVO(outputFolder);
+        }
+        return getSuccessResponseVO(videoPipelineComponent.process(sourceName1, sourceName2));
+    }
 
-        return getSuccessResponseVO(outputFolder + "/");
+    /**
+     * 批量处理，sourceName1 和 sourceName2 按下标一一配对，按提交顺序返回每组的输出目录或错误信息
+     */
+    @RequestMapping("/getResultBatch")
+    public ResponseVO getResultBatch(@RequestParam @NotEmpty List<String> sourceName1,
+                                     @RequestParam @NotEmpty List<String> sourceName2) {
+        if (sourceName1.size() != sourceName2.size()) {
+            throw new BusinessException(ResponseCodeEnum.CODE_600);
+        }
+        if (jobQueueComponent.isEnabled()) {
+            List<String> jobIds = new ArrayList<>();
+            for (int i = 0; i < sourceName1.size(); i++) {
+                preprocessComponent.prepare(sourceName1.get(i));
+                preprocessComponent.prepare(sourceName2.get(i));
+                jobIds.add(jobQueueComponent.submit(sourceName1.get(i), sourceName2.get(i)));
+            }
+            long deadline = System.currentTimeMillis() + jobQueueComponent.getWaitTimeout();
+            List<BatchResultVO> results = new ArrayList<>();
+            for (int i = 0; i < jobIds.size(); i++) {
+                String name1 = sourceName1.get(i);
+                String name2 = sourceName2.get(i);
+                BatchResultVO result = new BatchResultVO(name1, name2);
+                try {
+                    result.success(jobQueueComponent.waitForPlayable(jobIds.get(i), deadline,
+                            finishedFolder -> catalogQueueResult(finishedFolder, name1, name2)));
+                } catch (BusinessException e) {
+                    result.error(e.getMessage());
+                }
+                results.add(result);
+            }
+            return getSuccessResponseVO(results);
+        }
+        return getSuccessResponseVO(videoPipelineComponent.processBatch(sourceName1, sourceName2));
     }
 
     @RequestMapping("/videoResource/{date}/{folderPath}")
     public void videoResource(HttpServletResponse response,
                               @PathVariable @NotEmpty String date,
                               @PathVariable @NotEmpty String folderPath) {
-        String filePath = Constants.VIDEO_FOLDER + date + "/" + folderPath + "/" + Constants.M3U8_NAME;
-        readFile(response, filePath);
+        MediaServeEvent event = new MediaServeEvent();
+        event.begin();
+        String filePath = getVideoFolderPath(date, folderPath, event) + Constants.M3U8_NAME;
+        readFile(response, filePath, event);
     }
 
     @RequestMapping("/videoResource/{date}/{folderPath}/{fileName}")
@@ -116,8 +171,10 @@ public class AppController extends ABaseController {
                                 @PathVariable @NotEmpty String date,
                                 @PathVariable @NotEmpty String folderPath,
                                 @PathVariable @NotEmpty String fileName) {
-        String filePath = Constants.VIDEO_FOLDER + date + "/" + folderPath + "/" + fileName;
-        readFile(response, filePath);
+        MediaServeEvent event = new MediaServeEvent();
+        event.begin();
+        String filePath = getVideoFolderPath(date, folderPath, event) + fileName;
+        readFile(response, filePath, event);
     }
 
     @RequestMapping("/videoResource/examples/{id}/{folderPath}")
@@ -141,55 +198,69 @@ public class AppController extends ABaseController {
         log.info(filePath);
     }
 
-    private void readFile(HttpServletResponse response, String filePath) {
-        File file = new File(filePath);
-        if (!file.exists()) {
-            return ;
-        }
-
-        try (OutputStream out = response.getOutputStream()) {
-            FileInputStream in = new FileInputStream(file);
-            byte[] buffer = new byte[1024];
-            int len;
-            while((len = in.read(buffer)) != -1) {
-                out.write(buffer, 0, len);
+    /**
+     * 媒体目录按节点保存，其他节点处理的结果由入口节点在任务完成后补记到本节点的目录中
+     */
+    private void catalogQueueResult(String outputFolder, String sourceName1, String sourceName2) {
+        try {
+            if (catalogComponent.getByResourceName(outputFolder) == null) {
+                videoProcessComponent.catalogOutput(outputFolder.substring(0, outputFolder.length() - 1), sourceName1, sourceName2);
             }
-            out.flush();
         } catch (Exception e) {
-            log.error("读取文件异常", e);
+            log.warn("处理结果写入媒体目录失败: {}", outputFolder, e);
         }
     }
 
-    private void convertVideo2Ts(String videoPath) {
-        File videoFile = new File(videoPath);
-        File tsFolder = videoFile.getParentFile();
-        String codec = ffmpegUtils.getVideoCodec(videoPath);
-        if (Constants.VIDEO_CODE_HEVC.equals(codec)) {
-            String tempFileName = videoPath + Constants.VIDEO_CODE_TEMP_FILE_SUFFIX;
-            new File(videoPath).renameTo(new File(tempFileName));
-            ffmpegUtils.convertHevc2Mp4(tempFileName, videoPath);
-            new File(tempFileName).delete();
+    /**
+     * 处理结果优先按媒体目录定位，目录中没有的按 {date}/{folderPath} 目录结构查找；是否命中目录缓存记录在 event 中
+     */
+    private String getVideoFolderPath(String date, String folderPath, MediaServeEvent event) {
+        boolean[] cacheHit = new boolean[1];
+        MediaInfo mediaInfo = catalogComponent.getByResourceName(date + "/" + folderPath + "/", cacheHit);
+        event.cacheHit = cacheHit[0];
+        if (mediaInfo != null) {
+            return mediaInfo.getFilePath() + "/";
         }
-        ffmpegUtils.convertVideo2Ts(tsFolder, videoPath);
-        videoFile.delete();
+        return Constants.VIDEO_FOLDER + date + "/" + folderPath + "/";
     }
 
-    // D:/Programs/FFWB/ffwb-app/backend/assets/video/20250412/7B2xvTWVcBBKT2xTmG9R.mp4
-    private void createVideoThumbnail(String videoPath) {
-        String imagePath = Constants.IMAGE_FOLDER +
-                videoPath.substring(
-                        Constants.VIDEO_FOLDER.length(),
-                        videoPath.lastIndexOf(".")
-                ) + Constants.IMAGE_SUFFIX;
-        ffmpegUtils.createVideoThumbnail(videoPath, imagePath);
+    private void readFile(HttpServletResponse response, String filePath) {
+        MediaServeEvent event = new MediaServeEvent();
+        event.begin();
+        readFile(response, filePath, event);
     }
 
-    // D:/Programs/FFWB/ffwb-app/backend/assets/video/20250412/bt8QEFvafHHfsXUaXV7t7B2xvTWVcBBKT2xTmG9R/0000.ts
-    private void createOutputVideoThumbnail(String videoPath) {
-        String imagePath = Constants.IMAGE_FOLDER + videoPath.substring(
-                Constants.VIDEO_FOLDER.length(),
-                videoPath.lastIndexOf("/")
-        ) + Constants.IMAGE_SUFFIX;
-        ffmpegUtils.createVideoThumbnail(videoPath, imagePath);
+    /**
+     * 读取文件并结束 event，event 在定位文件之前开始，耗时包含媒体目录查询
+     */
+    private void readFile(HttpServletResponse response, String filePath, MediaServeEvent event) {
+        File file = new File(filePath);
+        try {
+            if (!file.exists()) {
+                return ;
+            }
+            event.found = true;
+
+            try (OutputStream out = response.getOutputStream();
+                 FileInputStream in = new FileInputStream(file)) {
+                byte[] buffer = new byte[1024];
+                int len;
+                while((len = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
+                    event.bytes += len;
+                }
+                out.flush();
+            } catch (Exception e) {
+                log.error("读取文件异常", e);
+            }
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                String suffix = StringTools.getFileSuffix(file.getName());
+                event.pathClass = suffix == null ? "" : suffix.substring(1);
+                event.path = filePath;
+                event.commit();
+            }
+        }
     }
 }
@@ -0,0 +1,50 @@
+package com.fwwb.app.controller;
+
+import com.fwwb.app.component.CatalogComponent;
+import com.fwwb.app.entity.enums.MediaTypeEnum;
+import com.fwwb.app.entity.enums.ResponseCodeEnum;
+import com.fwwb.app.entity.po.MediaInfo;
+import com.fwwb.app.entity.vo.ResponseVO;
+import com.fwwb.app.exception.BusinessException;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import javax.validation.constraints.NotEmpty;
+
+@RestController
+@RequestMapping("/catalog")
+@Validated
+public class CatalogController extends ABaseController {
+
+    @Resource
+    private CatalogComponent catalogComponent;
+
+    /**
+     * 分页查询媒体目录
+     *
+     * @param mediaType    0:上传视频 1:处理结果，为空时不筛选
+     * @param resourceDate 日期，如 20250412，为空时不筛选
+     */
+    @RequestMapping("/loadMediaList")
+    public ResponseVO loadMediaList(Integer mediaType, String resourceDate,
+                                    Integer pageNo, Integer pageSize) {
+        pageNo = pageNo == null ? 1 : pageNo;
+        pageSize = pageSize == null ? 15 : pageSize;
+        if (mediaType != null && MediaTypeEnum.getByType(mediaType) == null
+                || pageNo < 1 || pageSize < 1 || pageSize > 100) {
+            throw new BusinessException(ResponseCodeEnum.CODE_600);
+        }
+        return getSuccessResponseVO(catalogComponent.findListByPage(mediaType, resourceDate, pageNo, pageSize));
+    }
+
+    @RequestMapping("/getMedia")
+    public ResponseVO getMedia(@NotEmpty String resourceName) {
+        MediaInfo mediaInfo = catalogComponent.getByResourceName(resourceName);
+        if (mediaInfo == null) {
+            throw new BusinessException(ResponseCodeEnum.CODE_404);
+        }
+        return getSuccessResponseVO(mediaInfo);
+    }
+}
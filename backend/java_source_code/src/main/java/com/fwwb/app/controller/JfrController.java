@@ -0,0 +1,55 @@
+package com.fwwb.app.controller;
+
+import com.fwwb.app.component.JfrComponent;
+import com.fwwb.app.entity.config.AppConfig;
+import com.fwwb.app.entity.enums.ResponseCodeEnum;
+import com.fwwb.app.entity.vo.ResponseVO;
+import com.fwwb.app.exception.BusinessException;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+
+@RestController
+@RequestMapping("/jfr")
+public class JfrController extends ABaseController {
+
+    @Resource
+    private AppConfig appConfig;
+
+    @Resource
+    private JfrComponent jfrComponent;
+
+    @RequestMapping("/start")
+    public ResponseVO start() {
+        checkEnabled();
+        return getSuccessResponseVO(jfrComponent.start());
+    }
+
+    @RequestMapping("/stop")
+    public ResponseVO stop() {
+        checkEnabled();
+        return getSuccessResponseVO(jfrComponent.stop());
+    }
+
+    @RequestMapping("/dump")
+    public ResponseVO dump() {
+        checkEnabled();
+        return getSuccessResponseVO(jfrComponent.dump());
+    }
+
+    @RequestMapping("/status")
+    public ResponseVO status() {
+        checkEnabled();
+        return getSuccessResponseVO(jfrComponent.getStatus());
+    }
+
+    /**
+     * 接口默认关闭，避免未授权用户在服务器上写入记录文件
+     */
+    private void checkEnabled() {
+        if (!appConfig.getJfrEndpointEnabled()) {
+            throw new BusinessException(ResponseCodeEnum.CODE_404);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.fwwb.app.entity.config;
+
+import com.fwwb.app.entity.constants.Constants;
+import com.fwwb.app.utils.StringTools;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+
+@Component
+public class AppConfig {
+
+    /**
+     * 节点角色：api 只提交任务不领取，worker / all 会启动 worker 线程领取任务
+     */
+    @Value("${app.node.role:all}")
+    private String nodeRole;
+
+    /**
+     * 节点标识，为空时使用 主机名-进程号
+     */
+    @Value("${app.node.id:}")
+    private String nodeId;
+
+    /**
+     * 是否启用共享目录任务队列
+     */
+    @Value("${app.queue.enabled:false}")
+    private Boolean queueEnabled;
+
+    /**
+     * 任务队列目录，多节点时指向同一个共享目录
+     */
+    @Value("${app.queue.folder:}")
+    private String queueFolder;
+
+    /**
+     * 每个 worker 线程同时持有一个任务，大于 1 时多个任务才能在流水线各阶段重叠执行
+     */
+    @Value("${app.queue.workerThreads:4}")
+    private Integer queueWorkerThreads;
+
+    @Value("${app.queue.pollInterval:1000}")
+    private Long queuePollInterval;
+
+    @Value("${app.queue.heartbeatInterval:5000}")
+    private Long queueHeartbeatInterval;
+
+    @Value("${app.queue.leaseTimeout:30000}")
+    private Long queueLeaseTimeout;
+
+    @Value("${app.queue.waitTimeout:1800000}")
+    private Long queueWaitTimeout;
+
+    /**
+     * 流水线各阶段线程数，检测占用 GPU/CPU，切片主要是磁盘 IO
+     */
+    @Value("${app.pipeline.detectThreads:1}")
+    private Integer pipelineDetectThreads;
+
+    @Value("${app.pipeline.transcodeThreads:1}")
+    private Integer pipelineTranscodeThreads;
+
+    @Value("${app.pipeline.segmentThreads:2}")
+    private Integer pipelineSegmentThreads;
+
+    @Value("${app.pipeline.thumbnailThreads:2}")
+    private Integer pipelineThumbnailThreads;
+
+    /**
+     * 每个阶段等待队列的容量，队列满时上游阶段阻塞
+     */
+    @Value("${app.pipeline.queueCapacity:16}")
+    private Integer pipelineQueueCapacity;
+
+    /**
+     * 流式模式：解码、检测、编码切片通过管道串联，不生成中间文件
+     */
+    @Value("${app.pipeline.streaming:false}")
+    private Boolean pipelineStreaming;
+
+    /**
+     * 等待流水线结果的最长时间（毫秒），批量处理时为整批的总时间
+     */
+    @Value("${app.pipeline.waitTimeout:1800000}")
+    private Long pipelineWaitTimeout;
+
+    /**
+     * 上传后是否在后台预处理（读取视频信息、转码为 H.264、切片）
+     */
+    @Value("${app.preprocess.enabled:true}")
+    private Boolean preprocessEnabled;
+
+    @Value("${app.preprocess.threads:1}")
+    private Integer preprocessThreads;
+
+    /**
+     * 上传后超过该时间（毫秒）仍未被 getResult 使用的预处理会被取消
+     */
+    @Value("${app.preprocess.ttl:600000}")
+    private Long preprocessTtl;
+
+    /**
+     * 处理结果是否生成拖动预览用的雪碧图和 I 帧播放列表
+     */
+    @Value("${app.trickplay.enabled:true}")
+    private Boolean trickplayEnabled;
+
+    @Value("${app.trickplay.interval:5}")
+    private Integer trickplayInterval;
+
+    @Value("${app.trickplay.width:160}")
+    private Integer trickplayWidth;
+
+    @Value("${app.trickplay.columns:10}")
+    private Integer trickplayColumns;
+
+    @Value("${app.trickplay.rows:10}")
+    private Integer trickplayRows;
+
+    /**
+     * 启动时开启持续的 JFR 记录
+     */
+    @Value("${app.jfr.enabled:false}")
+    private Boolean jfrEnabled;
+
+    /**
+     * 是否开放 /jfr/* 接口
+     */
+    @Value("${app.jfr.endpointEnabled:false}")
+    private Boolean jfrEndpointEnabled;
+
+    /**
+     * JFR 配置名称：default（开销约 1%）或 profile
+     */
+    @Value("${app.jfr.settings:default}")
+    private String jfrSettings;
+
+    @Value("${app.jfr.maxAge:3600000}")
+    private Long jfrMaxAge;
+
+    @Value("${app.jfr.maxSize:268435456}")
+    private Long jfrMaxSize;
+
+    /**
+     * 记录导出目录，为空时使用 data/jfr；记录中包含环境变量和完整命令行，不能放在对外提供静态资源的 assets 下
+     */
+    @Value("${app.jfr.folder:}")
+    private String jfrFolder;
+
+    /**
+     * 媒体目录数据库文件，为空时使用 data/catalog.db；必须在节点本地磁盘上，不能放在多节点共享的目录中
+     */
+    @Value("${app.catalog.file:}")
+    private String catalogFile;
+
+    public boolean isWorkerNode() {
+        return !Constants.NODE_ROLE_API.equalsIgnoreCase(nodeRole);
+    }
+
+    public String getNodeRole() {
+        return nodeRole;
+    }
+
+    public String getNodeId() {
+        if (StringTools.isEmpty(nodeId)) {
+            String hostName;
+            try {
+                hostName = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                hostName = "node";
+            }
+            // RuntimeMXBean 的名称格式为 pid@hostname
+            String pid = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+            nodeId = hostName + "-" + pid;
+        }
+        // 节点标识会拼进租约文件名，去掉文件名分隔用到的字符
+        nodeId = nodeId.replaceAll("[^A-Za-z0-9_-]", "_");
+        return nodeId;
+    }
+
+    public Boolean getQueueEnabled() {
+        return queueEnabled;
+    }
+
+    public String getQueueFolder() {
+        if (StringTools.isEmpty(queueFolder)) {
+            return Constants.BASE_PATH + Constants.QUEUE_FOLDER_NAME + "/";
+        }
+        return queueFolder.endsWith("/") || queueFolder.endsWith(File.separator) ? queueFolder : queueFolder + "/";
+    }
+
+    public Integer getQueueWorkerThreads() {
+        return queueWorkerThreads;
+    }
+
+    public Long getQueuePollInterval() {
+        return queuePollInterval;
+    }
+
+    public Long getQueueHeartbeatInterval() {
+        return queueHeartbeatInterval;
+    }
+
+    public Long getQueueLeaseTimeout() {
+        return queueLeaseTimeout;
+    }
+
+    public Long getQueueWaitTimeout() {
+        return queueWaitTimeout;
+    }
+
+    public Integer getPipelineDetectThreads() {
+        return pipelineDetectThreads;
+    }
+
+    public Integer getPipelineTranscodeThreads() {
+        return pipelineTranscodeThreads;
+    }
+
+    public Integer getPipelineSegmentThreads() {
+        return pipelineSegmentThreads;
+    }
+
+    public Integer getPipelineThumbnailThreads() {
+        return pipelineThumbnailThreads;
+    }
+
+    public Integer getPipelineQueueCapacity() {
+        return pipelineQueueCapacity;
+    }
+
+    public Boolean getPipelineStreaming() {
+        return pipelineStreaming;
+    }
+
+    public Long getPipelineWaitTimeout() {
+        return pipelineWaitTimeout;
+    }
+
+    public Boolean getPreprocessEnabled() {
+        return preprocessEnabled;
+    }
+
+    public Integer getPreprocessThreads() {
+        return preprocessThreads;
+    }
+
+    public Long getPreprocessTtl() {
+        return preprocessTtl;
+    }
+
+    public Boolean getTrickplayEnabled() {
+        return trickplayEnabled;
+    }
+
+    public Integer getTrickplayInterval() {
+        return trickplayInterval;
+    }
+
+    public Integer getTrickplayWidth() {
+        return trickplayWidth;
+    }
+
+    public Integer getTrickplayColumns() {
+        return trickplayColumns;
+    }
+
+    public Integer getTrickplayRows() {
+        return trickplayRows;
+    }
+
+    public Boolean getJfrEnabled() {
+        return jfrEnabled;
+    }
+
+    public Boolean getJfrEndpointEnabled() {
+        return jfrEndpointEnabled;
+    }
+
+    public String getJfrSettings() {
+        return jfrSettings;
+    }
+
+    public Long getJfrMaxAge() {
+        return jfrMaxAge;
+    }
+
+    public Long getJfrMaxSize() {
+        return jfrMaxSize;
+    }
+
+    public String getJfrFolder() {
+        if (StringTools.isEmpty(jfrFolder)) {
+            return Constants.BASE_PATH + Constants.JFR_FOLDER_NAME + "/";
+        }
+        return jfrFolder.endsWith("/") || jfrFolder.endsWith(File.separator) ? jfrFolder : jfrFolder + "/";
+    }
+
+    public String getCatalogFile() {
+        if (StringTools.isEmpty(catalogFile)) {
+            return Constants.BASE_PATH + Constants.CATALOG_FILE_NAME;
+        }
+        return catalogFile;
+    }
+}
@@ -7,9 +7,11 @@ public class Constants {
     public static final String BASE_PATH = getBasePath();
 
     // Asset paths relative to base path
+    public static final String ASSETS_FOLDER_NAME = "assets";
     public static final String IMAGE_FOLDER = BASE_PATH + "assets/image/";
     public static final String VIDEO_FOLDER = BASE_PATH + "assets/video/";
     public static final String SCRIPT_PATH = BASE_PATH + "assets/scripts/test_run.py";
+    public static final String STREAM_SCRIPT_PATH = BASE_PATH + "assets/scripts/stream_run.py";
 
     public static final String EXAMPLES_FOLDER_NAME = "examples";
 
@@ -21,9 +23,48 @@ public class Constants {
     public static final String M3U8_NAME = "index.m3u8";
     public static final String TS_NAME = "index.ts";
     public static final String IMAGE_SUFFIX = ".png";
+    public static final String SPRITE_NAME_PREFIX = "sprite_";
+    public static final String SPRITE_VTT_NAME = "thumbnails.vtt";
+    public static final String IFRAME_M3U8_NAME = "iframe.m3u8";
+    public static final String MASTER_M3U8_NAME = "master.m3u8";
     public static final String VIDEO_CODE_TEMP_FILE_SUFFIX = "_temp";
+    public static final String NORMALIZED_FILE_SUFFIX = "_h264.mp4";
     public static final String VIDEO_CODE_HEVC = "hevc";
 
+    public static final String NODE_ROLE_API = "api";
+
+    // Shared job queue layout, relative to the queue folder
+    public static final String QUEUE_FOLDER_NAME = "assets/queue";
+    public static final String QUEUE_PENDING = "pending";
+    public static final String QUEUE_RUNNING = "running";
+    public static final String QUEUE_DONE = "done";
+    public static final String QUEUE_FAILED = "failed";
+    public static final String QUEUE_PUBLISHED = "published";
+    public static final String QUEUE_JOB_SUFFIX = ".job";
+    public static final String QUEUE_FINISHING_SUFFIX = ".finishing";
+    public static final String QUEUE_RESULT_SUFFIX = ".result";
+    public static final String QUEUE_TEMP_SUFFIX = ".tmp";
+    public static final String QUEUE_OWNER_SEPARATOR = "@";
+
+    public static final String CATALOG_FILE_NAME = "data/catalog.db";
+
+    public static final String JFR_FOLDER_NAME = "data/jfr";
+    public static final String JFR_RECORDING_NAME = "fwwb";
+
+    /**
+     * Create asset directories if they don't exist.
+     * Called once the application is up so the filesystem work stays off the startup path.
+     */
+    public static void initAssetFolders() {
+        File imageDir = new File(IMAGE_FOLDER);
+        File videoDir = new File(VIDEO_FOLDER);
+        File scriptsDir = new File(SCRIPT_PATH).getParentFile();
+
+        if (!imageDir.exists()) imageDir.mkdirs();
+        if (!videoDir.exists()) videoDir.mkdirs();
+        if (!scriptsDir.exists()) scriptsDir.mkdirs();
+    }
+
     private static String getBasePath() {
         try {
             String path = Constants.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath();
@@ -37,15 +78,6 @@ public class Constants {
                 path = path + File.separator;
             }
 
-            // Create asset directories if they don't exist
-            File imageDir = new File(path + "assets/image");
-            File videoDir = new File(path + "assets/video");
-            File scriptsDir = new File(path + "assets/scripts");
-
-            if (!imageDir.exists()) imageDir.mkdirs();
-            if (!videoDir.exists()) videoDir.mkdirs();
-            if (!scriptsDir.exists()) scriptsDir.mkdirs();
-
             return path;
         } catch (Exception e) {
             // Fallback to current working directory if any error occurs
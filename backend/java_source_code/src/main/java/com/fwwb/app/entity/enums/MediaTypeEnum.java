@@ -0,0 +1,33 @@
+package com.fwwb.app.entity.enums;
+
+
+public enum MediaTypeEnum {
+    UPLOAD(0, "上传视频"),
+    OUTPUT(1, "处理结果");
+
+    private Integer type;
+
+    private String desc;
+
+    MediaTypeEnum(Integer type, String desc) {
+        this.type = type;
+        this.desc = desc;
+    }
+
+    public static MediaTypeEnum getByType(Integer type) {
+        for (MediaTypeEnum item : MediaTypeEnum.values()) {
+            if (item.getType().equals(type)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    public Integer getType() {
+        return type;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+}
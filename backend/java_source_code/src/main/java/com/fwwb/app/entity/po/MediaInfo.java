@@ -0,0 +1,122 @@
+package com.fwwb.app.entity.po;
+
+
+/**
+ * 媒体目录记录：上传的视频或处理结果
+ */
+public class MediaInfo {
+    /**
+     * 资源名，上传为 {date}/{random}.mp4，处理结果为 {date}/{random1}{random2}/
+     */
+    private String resourceName;
+
+    /**
+     * 0:上传视频 1:处理结果
+     */
+    private Integer mediaType;
+
+    private String resourceDate;
+
+    /**
+     * 文件或目录的绝对路径
+     */
+    private String filePath;
+
+    /**
+     * 缩略图路径，相对于图片目录
+     */
+    private String thumbnail;
+
+    /**
+     * 时长（秒）
+     */
+    private Integer duration;
+
+    private String codec;
+
+    private String sourceName1;
+
+    private String sourceName2;
+
+    private Long createTime;
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public void setResourceName(String resourceName) {
+        this.resourceName = resourceName;
+    }
+
+    public Integer getMediaType() {
+        return mediaType;
+    }
+
+    public void setMediaType(Integer mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getResourceDate() {
+        return resourceDate;
+    }
+
+    public void setResourceDate(String resourceDate) {
+        this.resourceDate = resourceDate;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getThumbnail() {
+        return thumbnail;
+    }
+
+    public void setThumbnail(String thumbnail) {
+        this.thumbnail = thumbnail;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    public String getSourceName1() {
+        return sourceName1;
+    }
+
+    public void setSourceName1(String sourceName1) {
+        this.sourceName1 = sourceName1;
+    }
+
+    public String getSourceName2() {
+        return sourceName2;
+    }
+
+    public void setSourceName2(String sourceName2) {
+        this.sourceName2 = sourceName2;
+    }
+
+    public Long getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Long createTime) {
+        this.createTime = createTime;
+    }
+}
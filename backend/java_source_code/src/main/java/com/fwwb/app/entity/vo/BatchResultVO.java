@@ -0,0 +1,76 @@
+package com.fwwb.app.entity.vo;
+
+
+/**
+ * 批量处理中单组输入的结果，成功时 outputFolder 有值，失败时 info 为错误信息
+ */
+public class BatchResultVO {
+    private static final String STATUS_SUCCESS = "success";
+    private static final String STATUS_ERROR = "error";
+
+    private String sourceName1;
+    private String sourceName2;
+    private String status;
+    private String outputFolder;
+    private String info;
+
+    public BatchResultVO() {
+    }
+
+    public BatchResultVO(String sourceName1, String sourceName2) {
+        this.sourceName1 = sourceName1;
+        this.sourceName2 = sourceName2;
+    }
+
+    public BatchResultVO success(String outputFolder) {
+        this.status = STATUS_SUCCESS;
+        this.outputFolder = outputFolder;
+        return this;
+    }
+
+    public BatchResultVO error(String info) {
+        this.status = STATUS_ERROR;
+        this.info = info;
+        return this;
+    }
+
+    public String getSourceName1() {
+        return sourceName1;
+    }
+
+    public void setSourceName1(String sourceName1) {
+        this.sourceName1 = sourceName1;
+    }
+
+    public String getSourceName2() {
+        return sourceName2;
+    }
+
+    public void setSourceName2(String sourceName2) {
+        this.sourceName2 = sourceName2;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getOutputFolder() {
+        return outputFolder;
+    }
+
+    public void setOutputFolder(String outputFolder) {
+        this.outputFolder = outputFolder;
+    }
+
+    public String getInfo() {
+        return info;
+    }
+
+    public void setInfo(String info) {
+        this.info = info;
+    }
+}
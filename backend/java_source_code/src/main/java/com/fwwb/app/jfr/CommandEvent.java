@@ -0,0 +1,45 @@
+package com.fwwb.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 外部命令（ffmpeg / ffprobe / python）执行，由 ProcessUtils.executeCommand / executePipeline 发出
+ */
+@Name("com.fwwb.app.Command")
+@Label("External Command")
+@Category({"FWWB", "Process"})
+@StackTrace(false)
+public class CommandEvent extends jdk.jfr.Event {
+
+    @Label("Command Class")
+    @Description("可执行文件名，如 ffmpeg、ffprobe、python")
+    public String commandClass;
+
+    @Label("Command")
+    public String command;
+
+    @Label("Spawn Time")
+    @Description("从调用到子进程启动的耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    public long spawnTime;
+
+    @Label("Run Time")
+    @Description("子进程从启动到退出的耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    public long runTime;
+
+    @Label("Exit Code")
+    public int exitCode;
+
+    @Label("Output Characters")
+    @Description("标准输出解码后的字符数")
+    public long outputChars;
+
+    @Label("Low Priority")
+    public boolean lowPriority;
+}
@@ -0,0 +1,36 @@
+package com.fwwb.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 图片、播放列表、分片等媒体文件的读取与返回，由 AppController.readFile 发出
+ */
+@Name("com.fwwb.app.MediaServe")
+@Label("Media Serve")
+@Category({"FWWB", "Media"})
+@StackTrace(false)
+public class MediaServeEvent extends jdk.jfr.Event {
+
+    @Label("Path Class")
+    @Description("文件类型，按后缀区分，如 m3u8、ts、png、jpg、vtt")
+    public String pathClass;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Cache Hit")
+    @Description("媒体目录定位命中内存缓存；为 false 时查询了 SQLite 或资源不经过媒体目录定位")
+    public boolean cacheHit;
+
+    @Label("Found")
+    public boolean found;
+}
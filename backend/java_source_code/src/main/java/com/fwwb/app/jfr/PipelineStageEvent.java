@@ -0,0 +1,35 @@
+package com.fwwb.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 流水线单个阶段的执行，由 VideoPipelineComponent 发出
+ */
+@Name("com.fwwb.app.PipelineStage")
+@Label("Pipeline Stage")
+@Category({"FWWB", "Pipeline"})
+@StackTrace(false)
+public class PipelineStageEvent extends jdk.jfr.Event {
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Source Name 1")
+    public String sourceName1;
+
+    @Label("Source Name 2")
+    public String sourceName2;
+
+    @Label("Queue Time")
+    @Description("从上一阶段完成（或提交）到本阶段开始执行的等待时间")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueTime;
+
+    @Label("Success")
+    public boolean success;
+}
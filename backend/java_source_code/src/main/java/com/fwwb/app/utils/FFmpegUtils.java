@@ -5,6 +5,7 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 /**
  * FFmpegUtils 工具类
@@ -159,4 +160,100 @@ public class FFmpegUtils {
         // 删除中间 .ts 文件
         new File(tsPath).delete();
     }
+
+    /**
+     * 获取视频的分辨率。
+     *
+     * @param videoPath 视频文件的路径
+     * @return 长度为 2 的数组，依次为宽、高
+     */
+    public int[] getVideoResolution(String videoPath) {
+        // 构造 ffprobe 命令，输出形如 1920x1080
+        String CMD = "ffprobe -v error -select_streams v:0 -show_entries stream=width,height -of csv=s=x:p=0 \"%s\"";
+        CMD = String.format(CMD, videoPath);
+
+        String result = ProcessUtils.executeCommand(CMD, true).trim();
+        String[] size = result.split("x");
+        return new int[]{Integer.parseInt(size[0].trim()), Integer.parseInt(size[1].trim())};
+    }
+
+    /**
+     * 获取视频的帧率，保留 ffprobe 输出的分数形式（如 `30000/1001`），可直接传给 ffmpeg 的 `-r` 参数。
+     *
+     * @param videoPath 视频文件的路径
+     * @return 帧率
+     */
+    public String getVideoFrameRate(String videoPath) {
+        String CMD = "ffprobe -v error -select_streams v:0 -show_entries stream=r_frame_rate -of default=noprint_wrappers=1:nokey=1 \"%s\"";
+        CMD = String.format(CMD, videoPath);
+
+        return ProcessUtils.executeCommand(CMD, true).trim();
+    }
+
+    /**
+     * 流式处理：解码 -> 检测 -> 编码切片，中间不落地任何文件。
+     *
+     * 第一个 ffmpeg 把两路输入缩放到同一尺寸后上下拼接，以 bgr24 原始帧写到管道；
+     * 检测脚本每次读取一帧（上半部分为输入 1，下半部分为输入 2），输出一帧标注后的画面；
+     * 最后一个 ffmpeg 直接编码为 H.264 并写出 HLS 分片。
+     * 播放列表类型为 event，分片在处理过程中逐个写出，处理未结束时即可开始播放。
+     * 任意一段命令退出码非 0 都会抛出异常。
+     *
+     * @param videoPath1 输入视频 1
+     * @param videoPath2 输入视频 2
+     * @param scriptPath 流式检测脚本
+     * @param width      输出宽度（偶数）
+     * @param height     输出高度（偶数）
+     * @param frameRate  帧率
+     * @param tsFolder   输出文件夹，用于保存 .ts 分片和 .m3u8 索引文件
+     */
+    public void streamDetect2Ts(String videoPath1, String videoPath2, String scriptPath,
+                                int width, int height, String frameRate, File tsFolder) {
+        String CMD_DECODE = "ffmpeg -v error -i \"%s\" -i \"%s\" " +
+                "-filter_complex \"[0:v]scale=%d:%d,setsar=1[a];[1:v]scale=%d:%d,setsar=1[b];[a][b]vstack=inputs=2,format=bgr24[v]\" " +
+                "-map \"[v]\" -r %s -f rawvideo pipe:1";
+        String CMD_DETECT = "python \"%s\" --width %d --height %d";
+        String CMD_ENCODE = "ffmpeg -y -v error -f rawvideo -pix_fmt bgr24 -s %dx%d -r %s -i pipe:0 " +
+                "-c:v libx264 -preset veryfast -pix_fmt yuv420p " +
+                "-f hls -hls_time 10 -hls_list_size 0 -hls_playlist_type event " +
+                "-hls_segment_filename \"%s/%%04d.ts\" \"%s\"";
+
+        // 三段分别启动并检查退出码，检测脚本中途崩溃时编码器只会收到 EOF 并正常退出
+        ProcessUtils.executePipeline(Arrays.asList(
+                String.format(CMD_DECODE, videoPath1, videoPath2, width, height, width, height, frameRate),
+                String.format(CMD_DETECT, scriptPath, width, height),
+                String.format(CMD_ENCODE, width, height, frameRate, tsFolder.getPath(), tsFolder.getPath() + "/" + Constants.M3U8_NAME)), true);
+    }
+
+    /**
+     * 一次解码生成雪碧图：每隔 interval 秒截取一帧，缩放后按 columns x rows 拼接成一张图片，
+     * 输出为 tsFolder 下的 sprite_001.jpg、sprite_002.jpg ……
+     *
+     * @param videoPath 视频文件或 m3u8 索引文件路径
+     * @param tsFolder  输出文件夹
+     * @param interval  截图间隔（秒）
+     * @param width     单张缩略图宽度
+     * @param height    单张缩略图高度
+     * @param columns   每张雪碧图的列数
+     * @param rows      每张雪碧图的行数
+     */
+    public void createSpriteSheets(String videoPath, File tsFolder, int interval, int width, int height, int columns, int rows) {
+        String CMD = "ffmpeg -y -v error -i \"%s\" -vf \"fps=1/%d,scale=%d:%d,tile=%dx%d\" -q:v 5 \"%s/%s%%03d.jpg\"";
+        CMD = String.format(CMD, videoPath, interval, width, height, columns, rows, tsFolder.getPath(), Constants.SPRITE_NAME_PREFIX);
+
+        ProcessUtils.executeCommand(CMD, true);
+    }
+
+    /**
+     * 获取视频流每个数据包的时间戳、字节偏移和标志位，用于定位关键帧。
+     *
+     * @param videoPath 视频文件路径，通常为单个 .ts 分片
+     * @return ffprobe 输出，每行一个数据包，格式为 pts_time=1.400000|pos=564|flags=K_
+     */
+    public String getVideoPackets(String videoPath) {
+        String CMD = "ffprobe -v error -select_streams v:0 -show_entries packet=pts_time,pos,flags -of compact=p=0 \"%s\"";
+        CMD = String.format(CMD, videoPath);
+
+        return ProcessUtils.executeCommand(CMD, false);
+    }
 }
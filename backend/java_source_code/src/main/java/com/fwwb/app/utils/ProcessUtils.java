@@ -1,12 +1,17 @@
 package com.fwwb.app.utils;
 
 import com.fwwb.app.exception.BusinessException;
+import com.fwwb.app.jfr.CommandEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -16,28 +21,41 @@ public class ProcessUtils {
     private static final Logger logger = LoggerFactory.getLogger(ProcessUtils.class);
     private static final String osName = System.getProperty("os.name").toLowerCase();
 
+    /**
+     * 当前线程发起的命令是否以低优先级运行（仅类 Unix 系统，通过 nice 实现）
+     */
+    private static final ThreadLocal<Boolean> lowPriority = ThreadLocal.withInitial(() -> false);
+
+    public static void setLowPriority(boolean value) {
+        lowPriority.set(value);
+    }
+
     public static String executeCommand(String cmd, boolean showLog) throws BusinessException {
         if (cmd == null || cmd.trim().isEmpty()) {
             throw new IllegalArgumentException("命令不能为空");
         }
 
-        ProcessBuilder builder;
-        if (osName.contains("win")) {
-            builder = new ProcessBuilder("cmd.exe", "/c", cmd);
-        } else {
-            builder = new ProcessBuilder("/bin/sh", "-c", cmd);
-        }
-
+        ProcessBuilder builder = newBuilder(cmd);
         builder.redirectErrorStream(true);
 
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        event.exitCode = -1;
+
+        Process process = null;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
         try {
-            Process process = builder.start();
-            ExecutorService executor = Executors.newSingleThreadExecutor();
+            process = builder.start();
+            long spawnTime = System.nanoTime();
+            event.spawnTime = spawnTime - startTime;
             Future<String> outputFuture = executor.submit(new StreamGobbler(process.getInputStream()));
 
             int exitCode = process.waitFor();
-            executor.shutdown();
+            event.runTime = System.nanoTime() - spawnTime;
+            event.exitCode = exitCode;
             String output = outputFuture.get();
+            event.outputChars = output.length();
 
             if (showLog) {
                 logger.info("执行命令: {}\n结果: {}", cmd, output);
@@ -48,9 +66,175 @@ public class ProcessUtils {
             }
 
             return output;
+        } catch (InterruptedException e) {
+            // 线程被中断（任务取消）时结束子进程及其子进程，避免遗留后台 ffmpeg
+            destroyProcessTree(process);
+            Thread.currentThread().interrupt();
+            logger.info("命令被中断: {}", cmd);
+            throw new BusinessException("命令被中断");
         } catch (Exception e) {
+            destroyProcessTree(process);
             logger.error("执行命令失败: {}", cmd, e);
             throw new BusinessException("命令执行失败: " + e.getMessage());
+        } finally {
+            executor.shutdownNow();
+            event.end();
+            if (event.shouldCommit()) {
+                event.commandClass = getCommandClass(cmd);
+                event.command = cmd;
+                event.lowPriority = lowPriority.get();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 以管道串联执行多条命令，前一条的标准输出接到后一条的标准输入。
+     * 每条命令是独立的进程，全部结束后检查每一段的退出码，任意一段失败都视为失败；
+     * 不使用 shell 的 "|"，因为 shell 只返回最后一条命令的退出码。
+     * 管道由本进程转发：ProcessBuilder.startPipeline 会在父进程中保留中间管道的读端，下游退出后上游收不到 SIGPIPE。
+     *
+     * @param cmds    按顺序串联的命令
+     * @param showLog 是否打印各段的错误输出
+     */
+    public static void executePipeline(List<String> cmds, boolean showLog) throws BusinessException {
+        if (cmds == null || cmds.isEmpty()) {
+            throw new IllegalArgumentException("命令不能为空");
+        }
+        String cmd = String.join(" | ", cmds);
+
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        event.exitCode = -1;
+
+        List<Process> processes = new ArrayList<>();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            for (String stage : cmds) {
+                processes.add(newBuilder(stage).start());
+            }
+            long spawnTime = System.nanoTime();
+            event.spawnTime = spawnTime - startTime;
+
+            // 第一段不读标准输入
+            processes.get(0).getOutputStream().close();
+            for (int i = 0; i < processes.size() - 1; i++) {
+                executor.submit(new StreamPump(processes.get(i).getInputStream(), processes.get(i + 1).getOutputStream()));
+            }
+            // 各段的错误输出和最后一段的标准输出都要读走，否则管道写满后进程会阻塞
+            List<Future<String>> errorFutures = new ArrayList<>();
+            for (Process process : processes) {
+                errorFutures.add(executor.submit(new StreamGobbler(process.getErrorStream())));
+            }
+            Future<String> outputFuture = executor.submit(new StreamGobbler(processes.get(processes.size() - 1).getInputStream()));
+
+            List<Integer> exitCodes = new ArrayList<>();
+            for (Process process : processes) {
+                exitCodes.add(process.waitFor());
+            }
+            event.runTime = System.nanoTime() - spawnTime;
+            event.outputChars = outputFuture.get().length();
+
+            event.exitCode = 0;
+            for (int i = 0; i < processes.size(); i++) {
+                String errors = errorFutures.get(i).get();
+                if (showLog && !errors.isEmpty()) {
+                    logger.info("执行命令: {}\n结果: {}", cmds.get(i), errors);
+                }
+                if (exitCodes.get(i) != 0 && event.exitCode == 0) {
+                    event.exitCode = exitCodes.get(i);
+                }
+            }
+            if (event.exitCode != 0) {
+                // 某一段失败时它的上游通常也会因管道断开而失败，列出每一段的退出码便于定位
+                throw new BusinessException("执行命令失败，各段退出码: " + exitCodes);
+            }
+        } catch (InterruptedException e) {
+            // 线程被中断（任务取消）时结束所有子进程，避免遗留后台 ffmpeg
+            for (Process process : processes) {
+                destroyProcessTree(process);
+            }
+            Thread.currentThread().interrupt();
+            logger.info("命令被中断: {}", cmd);
+            throw new BusinessException("命令被中断");
+        } catch (BusinessException e) {
+            logger.error("执行命令失败: {}", cmd, e);
+            throw e;
+        } catch (Exception e) {
+            for (Process process : processes) {
+                destroyProcessTree(process);
+            }
+            logger.error("执行命令失败: {}", cmd, e);
+            throw new BusinessException("命令执行失败: " + e.getMessage());
+        } finally {
+            executor.shutdownNow();
+            event.end();
+            if (event.shouldCommit()) {
+                event.commandClass = getCommandClass(cmd);
+                event.command = cmd;
+                event.lowPriority = lowPriority.get();
+                event.commit();
+            }
+        }
+    }
+
+    private static ProcessBuilder newBuilder(String cmd) {
+        if (osName.contains("win")) {
+            return new ProcessBuilder("cmd.exe", "/c", cmd);
+        } else if (lowPriority.get()) {
+            return new ProcessBuilder("nice", "-n", "10", "/bin/sh", "-c", cmd);
+        }
+        return new ProcessBuilder("/bin/sh", "-c", cmd);
+    }
+
+    /**
+     * 结束进程及其所有子进程：命令通过 sh / nice 启动，只结束直接子进程时真正的 ffmpeg 会遗留在后台
+     */
+    private static void destroyProcessTree(Process process) {
+        if (process == null) {
+            return;
+        }
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * 取命令的可执行文件名，如 "ffmpeg -i ..." -> ffmpeg，"/usr/bin/python3 x.py" -> python3
+     */
+    private static String getCommandClass(String cmd) {
+        String executable = cmd.trim().split("\\s+")[0].replace("\"", "");
+        executable = executable.substring(Math.max(executable.lastIndexOf('/'), executable.lastIndexOf('\\')) + 1);
+        if (executable.toLowerCase().endsWith(".exe")) {
+            executable = executable.substring(0, executable.length() - 4);
+        }
+        return executable;
+    }
+
+    /**
+     * 把上一段的输出转发给下一段：上游结束时关闭下游的输入，下游退出时关闭上游的输出管道，上游随之因管道断开退出
+     */
+    private static class StreamPump implements Callable<Void> {
+        private final InputStream inputStream;
+        private final OutputStream outputStream;
+
+        public StreamPump(InputStream inputStream, OutputStream outputStream) {
+            this.inputStream = inputStream;
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public Void call() {
+            try (InputStream in = inputStream; OutputStream out = outputStream) {
+                byte[] buffer = new byte[64 * 1024];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
+                }
+            } catch (IOException e) {
+                // 下游已退出，退出码在 executePipeline 中检查
+            }
+            return null;
         }
     }
 
@@ -0,0 +1,217 @@
+package com.fwwb.app.component;
+
+import com.fwwb.app.entity.config.AppConfig;
+import com.fwwb.app.entity.constants.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * 两个节点共享同一个临时队列目录：领取、租约过期、回收后重新领取
+ */
+class JobQueueComponentTest {
+
+    private static final long HEARTBEAT_INTERVAL = 100;
+    private static final long LEASE_TIMEOUT = 1000;
+    private static final long WAIT_TIMEOUT = 10000;
+
+    @TempDir
+    Path queueFolder;
+
+    private final List<JobQueueComponent> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (JobQueueComponent node : nodes) {
+            node.destroy();
+        }
+    }
+
+    @Test
+    void eachJobIsClaimedByExactlyOneNode() {
+        VideoPipelineComponent pipeline1 = echoPipeline("node1");
+        VideoPipelineComponent pipeline2 = echoPipeline("node2");
+        JobQueueComponent node1 = startNode("node1", 2, pipeline1);
+        startNode("node2", 2, pipeline2);
+
+        List<String> jobIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            jobIds.add(node1.submit("20250412/a" + i + ".mp4", "20250412/b" + i + ".mp4"));
+        }
+        for (int i = 0; i < jobIds.size(); i++) {
+            String outputFolder = node1.waitForResult(jobIds.get(i));
+            assertTrue(outputFolder.endsWith("/20250412/a" + i + ".mp4/"), outputFolder);
+        }
+
+        int processed = Mockito.mockingDetails(pipeline1).getInvocations().size()
+                + Mockito.mockingDetails(pipeline2).getInvocations().size();
+        assertEquals(jobIds.size(), processed);
+        assertEquals(0, listFiles(Constants.QUEUE_PENDING).length);
+        assertEquals(0, listFiles(Constants.QUEUE_RUNNING).length);
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedByAnotherNode() throws Exception {
+        reclaimAfterOwnerStalls("node1", "node2");
+    }
+
+    @Test
+    void staleRunDoesNotTakeOverLeaseReclaimedBySameNode() throws Exception {
+        // 同一个节点标识重新领取时，过期的那次处理不能把新租约当成自己的
+        reclaimAfterOwnerStalls("node1", "node1");
+    }
+
+    @Test
+    void streamingJobIsPlayableEarlyButHoldsLeaseAndWorkerUntilFinished() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        VideoPipelineComponent pipeline = Mockito.mock(VideoPipelineComponent.class);
+        when(pipeline.process(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            Consumer<String> onPlayable = invocation.getArgument(2);
+            onPlayable.accept("stream/");
+            release.await();
+            return "stream/";
+        });
+        JobQueueComponent node = startNode("node1", 1, pipeline);
+
+        String jobId = node.submit("20250412/a.mp4", "20250412/b.mp4");
+        CompletableFuture<String> finished = new CompletableFuture<>();
+        assertEquals("stream/", node.waitForPlayable(jobId, System.currentTimeMillis() + WAIT_TIMEOUT, finished::complete));
+
+        // 已经可以播放但处理仍在进行：租约保留，结果未写出，唯一的 worker 线程不领取新任务
+        String nextJobId = node.submit("20250412/c.mp4", "20250412/d.mp4");
+        Thread.sleep(HEARTBEAT_INTERVAL * 3);
+        assertEquals(1, listFiles(Constants.QUEUE_RUNNING).length);
+        assertEquals(1, listFiles(Constants.QUEUE_PENDING).length);
+        assertEquals(0, listFiles(Constants.QUEUE_DONE).length);
+        assertFalse(finished.isDone());
+
+        release.countDown();
+        assertEquals("stream/", finished.get(WAIT_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals("stream/", node.waitForResult(nextJobId));
+        assertEquals(0, listFiles(Constants.QUEUE_PUBLISHED).length);
+    }
+
+    @Test
+    void finishingLeaseOfCrashedNodeIsReclaimed() throws Exception {
+        // 节点在确认租约后、写结果前宕机，留下的 .finishing 文件同样按租约过期放回队列
+        JobQueueComponent node = startNode("node2", 1, echoPipeline("node2"));
+        File runningFolder = queueFolder.resolve(Constants.QUEUE_RUNNING).toFile();
+        Properties job = new Properties();
+        job.setProperty("sourceName1", "20250412/a.mp4");
+        job.setProperty("sourceName2", "20250412/b.mp4");
+        String jobId = "1_crashed";
+        try (OutputStream out = new FileOutputStream(new File(runningFolder, jobId + "@node1@abcdefgh" + Constants.QUEUE_FINISHING_SUFFIX))) {
+            job.store(out, null);
+        }
+
+        assertEquals("node2/20250412/a.mp4/", node.waitForResult(jobId));
+        assertEquals(0, listFiles(Constants.QUEUE_RUNNING).length);
+    }
+
+    private void reclaimAfterOwnerStalls(String staleNodeId, String reclaimNodeId) throws Exception {
+        CountDownLatch staleStarted = new CountDownLatch(1);
+        CountDownLatch staleRelease = new CountDownLatch(1);
+        JobQueueComponent staleNode = startNode(staleNodeId, 1, blockingPipeline("stale", staleStarted, staleRelease));
+
+        String jobId = staleNode.submit("20250412/a.mp4", "20250412/b.mp4");
+        assertTrue(staleStarted.await(WAIT_TIMEOUT, TimeUnit.MILLISECONDS));
+        // 模拟节点卡死：处理线程不返回，租约不再续约
+        ((ScheduledExecutorService) ReflectionTestUtils.getField(staleNode, "leasePool")).shutdownNow();
+
+        CountDownLatch reclaimStarted = new CountDownLatch(1);
+        CountDownLatch reclaimRelease = new CountDownLatch(1);
+        JobQueueComponent reclaimNode = startNode(reclaimNodeId, 1, blockingPipeline("reclaim", reclaimStarted, reclaimRelease));
+
+        // 租约过期后被放回队列，由第二个节点重新领取
+        assertTrue(reclaimStarted.await(WAIT_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(1, listFiles(Constants.QUEUE_RUNNING).length);
+
+        // 过期的处理结束：结果丢弃，新租约保持不变
+        staleRelease.countDown();
+        waitUntil(() -> ownedJobs(staleNode).isEmpty());
+        assertEquals(0, listFiles(Constants.QUEUE_DONE).length);
+        assertEquals(1, listFiles(Constants.QUEUE_RUNNING).length);
+
+        reclaimRelease.countDown();
+        assertEquals("reclaim/", reclaimNode.waitForResult(jobId));
+        assertEquals(0, listFiles(Constants.QUEUE_RUNNING).length);
+    }
+
+    private JobQueueComponent startNode(String nodeId, int workerThreads, VideoPipelineComponent pipeline) {
+        AppConfig appConfig = new AppConfig();
+        ReflectionTestUtils.setField(appConfig, "nodeRole", "all");
+        ReflectionTestUtils.setField(appConfig, "nodeId", nodeId);
+        ReflectionTestUtils.setField(appConfig, "queueEnabled", true);
+        ReflectionTestUtils.setField(appConfig, "queueFolder", queueFolder.toString());
+        ReflectionTestUtils.setField(appConfig, "queueWorkerThreads", workerThreads);
+        ReflectionTestUtils.setField(appConfig, "queuePollInterval", 50L);
+        ReflectionTestUtils.setField(appConfig, "queueHeartbeatInterval", HEARTBEAT_INTERVAL);
+        ReflectionTestUtils.setField(appConfig, "queueLeaseTimeout", LEASE_TIMEOUT);
+        ReflectionTestUtils.setField(appConfig, "queueWaitTimeout", WAIT_TIMEOUT);
+
+        JobQueueComponent node = new JobQueueComponent();
+        ReflectionTestUtils.setField(node, "appConfig", appConfig);
+        ReflectionTestUtils.setField(node, "videoPipelineComponent", pipeline);
+        node.init();
+        nodes.add(node);
+        return node;
+    }
+
+    private VideoPipelineComponent echoPipeline(String nodeId) {
+        VideoPipelineComponent pipeline = Mockito.mock(VideoPipelineComponent.class);
+        when(pipeline.process(anyString(), anyString(), any())).thenAnswer(invocation -> nodeId + "/" + invocation.getArgument(0) + "/");
+        return pipeline;
+    }
+
+    private VideoPipelineComponent blockingPipeline(String outputFolder, CountDownLatch started, CountDownLatch release) {
+        VideoPipelineComponent pipeline = Mockito.mock(VideoPipelineComponent.class);
+        when(pipeline.process(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return outputFolder + "/";
+        });
+        return pipeline;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<File, String> ownedJobs(JobQueueComponent node) {
+        return (Map<File, String>) ReflectionTestUtils.getField(node, "ownedJobs");
+    }
+
+    private File[] listFiles(String folder) {
+        File[] files = queueFolder.resolve(folder).toFile().listFiles((dir, name) -> !name.endsWith(Constants.QUEUE_TEMP_SUFFIX));
+        return files == null ? new File[0] : files;
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(20);
+        }
+    }
+}
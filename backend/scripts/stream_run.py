@@ -0,0 +1,46 @@
+import sys
+import argparse
+
+
+# 从标准输入读取指定字节数，输入结束时返回 None
+def read_frame(stream, frame_size):
+    buffer = bytearray(frame_size)
+    view = memoryview(buffer)
+    read = 0
+    while read < frame_size:
+        count = stream.readinto(view[read:])
+        if not count:
+            return None
+        read += count
+    return buffer
+
+
+# 处理一帧：上半部分为输入 1，下半部分为输入 2，返回输出画面
+def process_frame(frame, frame_size):
+    # 与 test_run.py 一致，直接输出输入 1 的画面
+    return frame[:frame_size]
+
+
+# 主函数
+def main():
+    # 设置命令行参数
+    parser = argparse.ArgumentParser(description="Read stacked bgr24 frames from stdin and write processed frames to stdout")
+    parser.add_argument('--width', type=int, required=True, help="Frame width")
+    parser.add_argument('--height', type=int, required=True, help="Height of one input frame")
+
+    args = parser.parse_args()
+
+    # 单路画面的字节数，输入帧为两路上下拼接
+    frame_size = args.width * args.height * 3
+
+    stdin = sys.stdin.buffer
+    stdout = sys.stdout.buffer
+    while True:
+        frame = read_frame(stdin, frame_size * 2)
+        if frame is None:
+            break
+        stdout.write(process_frame(frame, frame_size))
+    stdout.flush()
+
+if __name__ == "__main__":
+    main()
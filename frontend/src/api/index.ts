@@ -27,6 +27,18 @@ const api = {
     return `/api/videoResource/examples/${sampleId}/${type}`;
   },
 
+  // 分页查询媒体目录，mediaType 0:上传视频 1:处理结果
+  loadMediaList(pageNo: number, pageSize: number, mediaType?: number, resourceDate?: string) {
+    return axios.get('/api/catalog/loadMediaList', {
+      params: {
+        pageNo,
+        pageSize,
+        mediaType,
+        resourceDate
+      }
+    });
+  },
+
   // 获取处理结果
   getResult(sourceName1: string, sourceName2: string) {
     return axios.get(`/api/getResult`, {
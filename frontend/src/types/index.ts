@@ -15,6 +15,27 @@ export interface HistoryItem extends VideoData {
   timestamp: number;
 }
 
+// 媒体目录记录，mediaType 0:上传视频 1:处理结果
+export interface MediaInfo {
+  resourceName: string;
+  mediaType: number;
+  resourceDate: string;
+  thumbnail: string | null;
+  duration: number | null;
+  codec: string | null;
+  sourceName1: string | null;
+  sourceName2: string | null;
+  createTime: number;
+}
+
+export interface PaginationResult<T> {
+  totalCount: number;
+  pageSize: number;
+  pageNo: number;
+  pageTotal: number;
+  list: T[];
+}
+
 export interface ProcessingStatus {
   isProcessing: boolean;
   progress: number;